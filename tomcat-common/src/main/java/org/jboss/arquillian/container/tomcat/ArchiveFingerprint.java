@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+/**
+ * Computes a content hash of a ShrinkWrap {@link Archive}.
+ * <p>
+ * The hash is computed over the entry paths and contents rather than over an exported ZIP, whose bytes vary with entry
+ * timestamps. Nested archives are hashed recursively for the same reason. Two archives with the same entries and
+ * contents therefore always have the same fingerprint.
+ */
+public final class ArchiveFingerprint {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Computes the fingerprint of the given archive.
+     *
+     * @param archive
+     *     the archive
+     *
+     * @return the lower case hexadecimal SHA-256 hash of the archive content
+     */
+    public static String of(final Archive<?> archive) {
+
+        Validate.notNull(archive, "Archive must not be null");
+
+        final MessageDigest digest = createDigest();
+        try {
+            update(digest, archive);
+        } catch (final IOException e) {
+            throw new RuntimeException("Could not compute fingerprint of archive " + archive.getName(), e);
+        }
+
+        final byte[] hash = digest.digest();
+        final char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private static void update(final MessageDigest digest, final Archive<?> archive) throws IOException {
+
+        // sort by path, the content map does not guarantee a stable iteration order
+        final Map<ArchivePath, Node> content = new TreeMap<ArchivePath, Node>(archive.getContent());
+        final byte[] buffer = new byte[8192];
+
+        for (final Map.Entry<ArchivePath, Node> entry : content.entrySet()) {
+            digest.update(entry.getKey().get().getBytes(StandardCharsets.UTF_8));
+            // separate the path from the content, so that different splits cannot produce the same input
+            digest.update((byte) 0);
+
+            final Asset asset = entry.getValue().getAsset();
+            if (asset instanceof ArchiveAsset) {
+                update(digest, ((ArchiveAsset) asset).getArchive());
+            } else if (asset != null) {
+                try (InputStream in = asset.openStream()) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+            digest.update((byte) 0);
+        }
+    }
+
+    private static MessageDigest createDigest() {
+
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    private ArchiveFingerprint() {
+        // Util class.
+    }
+}
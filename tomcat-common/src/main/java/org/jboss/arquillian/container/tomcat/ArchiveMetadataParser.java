@@ -0,0 +1,399 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.HTTPContext;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.Servlet;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Constructs the protocol metadata of a deployment from the archive itself, without asking the server.
+ * <p>
+ * The servlets are collected from "WEB-INF/web.xml", the "META-INF/web-fragment.xml" descriptors of the libraries and
+ * the {@code @WebServlet} annotations of the classes in "WEB-INF/classes" and the libraries. Annotations and fragments
+ * are skipped if the web.xml is marked as metadata complete. Class files are read directly, no classes are loaded.
+ * <p>
+ * Servlets declared by the server itself, e.g. in "$CATALINA_BASE/conf/web.xml", are not known to this parser.
+ */
+public class ArchiveMetadataParser<C extends TomcatConfiguration> {
+
+    private static final Logger log = Logger.getLogger(ArchiveMetadataParser.class.getName());
+
+    private static final String WEB_XML = "/WEB-INF/web.xml";
+
+    private static final String CLASSES = "/WEB-INF/classes/";
+
+    private static final String LIB = "/WEB-INF/lib/";
+
+    private static final String WEB_FRAGMENT_XML = "META-INF/web-fragment.xml";
+
+    private static final String[] WEB_SERVLET_DESCRIPTORS = {
+        "Ljakarta/servlet/annotation/WebServlet;", "Ljavax/servlet/annotation/WebServlet;"};
+
+    private static final byte[] WEB_SERVLET_MARKER = "servlet/annotation/WebServlet;".getBytes(StandardCharsets.UTF_8);
+
+    private final C configuration;
+
+    public ArchiveMetadataParser(final C configuration) {
+
+        this.configuration = configuration;
+    }
+
+    /**
+     * Constructs the metadata of the given archive deployed to the given context.
+     *
+     * @throws DeploymentException
+     *     if the archive could not be analyzed
+     */
+    public ProtocolMetaData retrieveContextServletInfo(final Archive<?> archive, final String context)
+        throws DeploymentException {
+
+        final HTTPContext httpContext = new HTTPContext(configuration.getBindAddress(), configuration.getBindHttpPort());
+
+        final Set<String> servletNames;
+        try {
+            servletNames = findServletNames(archive);
+        } catch (final IOException | SAXException e) {
+            throw new DeploymentException("Unable to construct metadata for archive " + archive.getName(), e);
+        }
+
+        for (final String servletName : servletNames) {
+            httpContext.add(new Servlet(servletName, context));
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Added servlet " + servletName + " to HttpContext for archive " + context);
+            }
+        }
+
+        return new ProtocolMetaData().addContext(httpContext);
+    }
+
+    /**
+     * Finds the names of all servlets declared by the given web archive.
+     */
+    Set<String> findServletNames(final Archive<?> archive) throws IOException, SAXException {
+
+        final Set<String> servletNames = new LinkedHashSet<String>();
+        final DocumentBuilder documentBuilder = createDocumentBuilder();
+
+        boolean metadataComplete = false;
+        final Node webXml = archive.get(WEB_XML);
+        if (webXml != null && webXml.getAsset() != null) {
+            try (InputStream in = webXml.getAsset().openStream()) {
+                metadataComplete = addServletNames(documentBuilder.parse(in), servletNames);
+            }
+        }
+        if (metadataComplete) {
+            return servletNames;
+        }
+
+        for (final Map.Entry<ArchivePath, Node> entry : archive.getContent().entrySet()) {
+            final String path = entry.getKey().get();
+            final Asset asset = entry.getValue().getAsset();
+            if (asset == null) {
+                continue;
+            }
+            if (path.startsWith(CLASSES) && path.endsWith(".class")) {
+                try (InputStream in = asset.openStream()) {
+                    addAnnotatedServletName(in, servletNames);
+                }
+            } else if (path.startsWith(LIB) && path.endsWith(".jar")) {
+                if (asset instanceof ArchiveAsset) {
+                    scanLibrary(((ArchiveAsset) asset).getArchive(), documentBuilder, servletNames);
+                } else {
+                    try (InputStream in = asset.openStream()) {
+                        scanLibrary(in, documentBuilder, servletNames);
+                    }
+                }
+            }
+        }
+        return servletNames;
+    }
+
+    private void scanLibrary(final Archive<?> library, final DocumentBuilder documentBuilder,
+        final Set<String> servletNames) throws IOException, SAXException {
+
+        for (final Map.Entry<ArchivePath, Node> entry : library.getContent().entrySet()) {
+            final String path = entry.getKey().get().substring(1);
+            final Asset asset = entry.getValue().getAsset();
+            if (asset != null && (WEB_FRAGMENT_XML.equals(path) || path.endsWith(".class"))) {
+                try (InputStream in = asset.openStream()) {
+                    scanLibraryEntry(path, in, documentBuilder, servletNames);
+                }
+            }
+        }
+    }
+
+    private void scanLibrary(final InputStream library, final DocumentBuilder documentBuilder,
+        final Set<String> servletNames) throws IOException, SAXException {
+
+        final ZipInputStream zip = new ZipInputStream(library);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            final String path = entry.getName();
+            if (WEB_FRAGMENT_XML.equals(path) || path.endsWith(".class")) {
+                scanLibraryEntry(path, new ByteArrayInputStream(zip.readAllBytes()), documentBuilder, servletNames);
+            }
+        }
+    }
+
+    private void scanLibraryEntry(final String path, final InputStream in, final DocumentBuilder documentBuilder,
+        final Set<String> servletNames) throws IOException, SAXException {
+
+        if (WEB_FRAGMENT_XML.equals(path)) {
+            addServletNames(documentBuilder.parse(in), servletNames);
+        } else {
+            addAnnotatedServletName(in, servletNames);
+        }
+    }
+
+    /**
+     * Adds the names of the servlets declared by a web.xml or web-fragment.xml.
+     *
+     * @return whether the descriptor is marked as metadata complete
+     */
+    private static boolean addServletNames(final Document descriptor, final Set<String> servletNames) {
+
+        final NodeList servlets = descriptor.getElementsByTagNameNS("*", "servlet");
+        for (int i = 0; i < servlets.getLength(); i++) {
+            final NodeList names = ((Element) servlets.item(i)).getElementsByTagNameNS("*", "servlet-name");
+            if (names.getLength() > 0) {
+                servletNames.add(names.item(0).getTextContent().trim());
+            }
+        }
+        return "true".equalsIgnoreCase(descriptor.getDocumentElement().getAttribute("metadata-complete"));
+    }
+
+    /**
+     * Adds the name of the servlet declared by a {@code @WebServlet} annotated class file, if any.
+     */
+    private static void addAnnotatedServletName(final InputStream in, final Set<String> servletNames)
+        throws IOException {
+
+        final byte[] classFile = in.readAllBytes();
+        // cheap check first, only classes referring to the annotation are parsed
+        if (!contains(classFile, WEB_SERVLET_MARKER)) {
+            return;
+        }
+        final String servletName = readWebServletName(new DataInputStream(new ByteArrayInputStream(classFile)));
+        if (servletName != null) {
+            servletNames.add(servletName);
+        }
+    }
+
+    /**
+     * Reads the servlet name from the {@code @WebServlet} annotation of a class file, see chapter 4 of the Java Virtual
+     * Machine Specification. Defaults to the fully qualified class name, as required by the Servlet specification.
+     *
+     * @return the servlet name, or {@code null} if the class is not annotated
+     */
+    private static String readWebServletName(final DataInputStream in) throws IOException {
+
+        if (in.readInt() != 0xCAFEBABE) {
+            return null;
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        final int constantPoolCount = in.readUnsignedShort();
+        final String[] utf8 = new String[constantPoolCount];
+        final int[] classNameIndex = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            final int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNameIndex[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    // takes two constant pool entries
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        in.readUnsignedShort();
+        final String className = utf8[classNameIndex[in.readUnsignedShort()]];
+        in.readUnsignedShort();
+        in.skipBytes(2 * in.readUnsignedShort());
+
+        // fields and methods
+        for (int members = 0; members < 2; members++) {
+            final int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                in.skipBytes(6);
+                skipAttributes(in);
+            }
+        }
+
+        final int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            final String attributeName = utf8[in.readUnsignedShort()];
+            final int length = in.readInt();
+            if (!"RuntimeVisibleAnnotations".equals(attributeName)) {
+                in.skipBytes(length);
+                continue;
+            }
+            final int annotationCount = in.readUnsignedShort();
+            for (int j = 0; j < annotationCount; j++) {
+                final String type = utf8[in.readUnsignedShort()];
+                final boolean webServlet = isWebServlet(type);
+                String servletName = null;
+                final int pairCount = in.readUnsignedShort();
+                for (int k = 0; k < pairCount; k++) {
+                    final String elementName = utf8[in.readUnsignedShort()];
+                    final int tag = in.readUnsignedByte();
+                    if (webServlet && "name".equals(elementName) && tag == 's') {
+                        servletName = utf8[in.readUnsignedShort()];
+                    } else {
+                        skipElementValue(tag, in);
+                    }
+                }
+                if (webServlet) {
+                    return servletName == null || servletName.isEmpty() ? className.replace('/', '.') : servletName;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void skipAttributes(final DataInputStream in) throws IOException {
+
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.skipBytes(2);
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    private static void skipElementValue(final int tag, final DataInputStream in) throws IOException {
+
+        switch (tag) {
+            case 'e':
+                in.skipBytes(4);
+                break;
+            case '@':
+                in.skipBytes(2);
+                final int pairCount = in.readUnsignedShort();
+                for (int i = 0; i < pairCount; i++) {
+                    in.skipBytes(2);
+                    skipElementValue(in.readUnsignedByte(), in);
+                }
+                break;
+            case '[':
+                final int valueCount = in.readUnsignedShort();
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue(in.readUnsignedByte(), in);
+                }
+                break;
+            default:
+                // constant values and class literals
+                in.skipBytes(2);
+        }
+    }
+
+    private static boolean isWebServlet(final String type) {
+
+        for (final String descriptor : WEB_SERVLET_DESCRIPTORS) {
+            if (descriptor.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(final byte[] bytes, final byte[] marker) {
+
+        outer:
+        for (int i = 0; i <= bytes.length - marker.length; i++) {
+            for (int j = 0; j < marker.length; j++) {
+                if (bytes[i + j] != marker[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static DocumentBuilder createDocumentBuilder() {
+
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setExpandEntityReferences(false);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            // older descriptors declare a DTD, which must not be fetched
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            return factory.newDocumentBuilder();
+        } catch (final ParserConfigurationException e) {
+            throw new IllegalStateException("Unable to create a parser for deployment descriptors", e);
+        }
+    }
+}
@@ -16,16 +16,29 @@
  */
 package org.jboss.arquillian.container.tomcat;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
+import javax.management.ListenerNotFoundException;
+import javax.management.MBeanException;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
+import javax.management.NotificationListener;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.RuntimeOperationsException;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
@@ -34,21 +47,67 @@ import org.jboss.arquillian.container.spi.client.container.DeploymentException;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.HTTPContext;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.Servlet;
+import org.jboss.shrinkwrap.api.Archive;
 
 /**
+ * Retrieves deployment metadata through JMX. The JMX connection is established on first use and reused for all
+ * further deployments until {@link #close()} is called; a connection found to be broken is replaced transparently.
+ *
  * @author <a href="kpiwko@redhat.com>Karel Piwko</a>
  */
-public class ProtocolMetadataParser<C extends TomcatConfiguration> {
+public class ProtocolMetadataParser<C extends TomcatConfiguration> implements Closeable {
 
     private static final Logger log = Logger.getLogger(ProtocolMetaData.class.getName());
 
     private final C configuration;
 
+    /**
+     * Lifecycle states of a WebModule that is still to register servlets.
+     */
+    private static final Set<String> STARTING_STATES = new HashSet<String>(
+        Arrays.asList("NEW", "INITIALIZING", "INITIALIZED", "STARTING_PREP", "STARTING"));
+
+    /**
+     * Notifications a WebModule sends once it is done starting, i.e. all its servlets are registered, or failed to.
+     */
+    private static final Set<String> STARTED_NOTIFICATIONS = new HashSet<String>(
+        Arrays.asList("j2ee.state.running", "j2ee.object.failed", "j2ee.state.stopped"));
+
     protected String catalinaServletTemplate = "Catalina:j2eeType=Servlet,WebModule=//%s/%s,*";
 
+    protected String catalinaWebModuleTemplate = "Catalina:j2eeType=WebModule,name=//%s/%s,*";
+
+    private JMXConnector jmxConnector;
+
+    private final ArchiveMetadataParser<C> archiveMetadataParser;
+
     public ProtocolMetadataParser(final C configuration) {
 
         this.configuration = configuration;
+        this.archiveMetadataParser = new ArchiveMetadataParser<C>(configuration);
+    }
+
+    /**
+     * Retrieves the servlets information of the given archive deployed to the given context, from the source selected
+     * by {@link TomcatConfiguration#getMetadataSource()}. If the archive itself is selected but declares no servlets,
+     * the information is retrieved through JMX.
+     *
+     * @throws DeploymentException
+     */
+    public ProtocolMetaData retrieveContextServletInfo(final String context, final Archive<?> archive)
+        throws DeploymentException {
+
+        if (TomcatConfiguration.METADATA_SOURCE_ARCHIVE.equals(configuration.getMetadataSource())) {
+            final ProtocolMetaData protocolMetaData = archiveMetadataParser.retrieveContextServletInfo(archive, context);
+            for (final HTTPContext httpContext : protocolMetaData.getContexts(HTTPContext.class)) {
+                if (!httpContext.getServlets().isEmpty()) {
+                    return protocolMetaData;
+                }
+            }
+            log.info("No servlets declared in archive " + archive.getName() + ", retrieving them through JMX");
+        }
+
+        return retrieveContextServletInfo(context);
     }
 
     /**
@@ -72,7 +131,7 @@ public class ProtocolMetadataParser<C extends TomcatConfiguration> {
 
         JMXConnector jmxc = null;
         try {
-            jmxc = connect(configuration.getJmxUri());
+            jmxc = getConnector();
         } catch (final IOException ex) {
             throw new DeploymentException("Unable to contruct metadata for archive deployment.\n" + "Can't connect to '"
                 + configuration.getJmxUri() + "'."
@@ -86,6 +145,7 @@ public class ProtocolMetadataParser<C extends TomcatConfiguration> {
         try {
             servletMBeans = getServletMBeans(jmxc, context);
         } catch (final IOException e) {
+            invalidateConnector(jmxc);
             throw new DeploymentException("Unable to construct metadata for archive deployment", e);
         }
 
@@ -102,6 +162,55 @@ public class ProtocolMetadataParser<C extends TomcatConfiguration> {
         return protocolMetaData;
     }
 
+    /**
+     * Closes the JMX connection, if any. The parser may still be used afterwards, it reconnects on demand.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (jmxConnector != null) {
+            closeQuietly(jmxConnector);
+            jmxConnector = null;
+        }
+    }
+
+    /**
+     * Returns the cached JMX connector, connecting first if there is none or the cached one no longer responds.
+     */
+    protected synchronized JMXConnector getConnector() throws IOException {
+
+        if (jmxConnector != null) {
+            try {
+                // a cheap remote call, which fails if the server went away
+                jmxConnector.getConnectionId();
+                return jmxConnector;
+            } catch (final IOException e) {
+                log.fine("Cached JMX connection is broken, reconnecting: " + e.getMessage());
+                closeQuietly(jmxConnector);
+                jmxConnector = null;
+            }
+        }
+
+        jmxConnector = connect(configuration.getJmxUri());
+        return jmxConnector;
+    }
+
+    private synchronized void invalidateConnector(final JMXConnector jmxc) {
+
+        if (jmxc == jmxConnector) {
+            close();
+        }
+    }
+
+    private static void closeQuietly(final JMXConnector jmxc) {
+
+        try {
+            jmxc.close();
+        } catch (final IOException e) {
+            log.fine("Unable to close JMX connection: " + e.getMessage());
+        }
+    }
+
     protected JMXConnector connect(final URI jmxUri) throws IOException {
 
         log.info("Connecting to JMX at " + jmxUri);
@@ -110,24 +219,105 @@ public class ProtocolMetadataParser<C extends TomcatConfiguration> {
         return JMXConnectorFactory.connect(url, null);
     }
 
+    /**
+     * Queries the servlet MBeans of the given context once it has started. The servlets of a context are registered
+     * while it starts, so if the context's WebModule MBean reports a starting state, the notification it sends once
+     * started is awaited, for at most {@link TomcatConfiguration#getMetadataTimeoutInSeconds()}. Without a WebModule
+     * MBean reporting its state, the servlets registered by now are returned.
+     */
     protected Set<ObjectInstance> getServletMBeans(final JMXConnector jmxc, final String context) throws IOException {
 
         // connect to MBeanServer and get metadata
         final MBeanServerConnection mbsc = jmxc.getMBeanServerConnection();
-        final String catalinaServlet = String.format(catalinaServletTemplate, configuration.getJmxVirtualHost(), context);
+        final ObjectName servletON =
+            getObjectName(String.format(catalinaServletTemplate, configuration.getJmxVirtualHost(), context));
+
+        if (configuration.getMetadataTimeoutInSeconds() > 0) {
+            final ObjectName webModuleON =
+                getObjectName(String.format(catalinaWebModuleTemplate, configuration.getJmxVirtualHost(), context));
+            for (final ObjectName webModule : mbsc.queryNames(webModuleON, null)) {
+                awaitStarted(mbsc, webModule);
+            }
+        }
+        return mbsc.queryMBeans(servletON, null);
+    }
+
+    /**
+     * Waits for the given WebModule to send the notification telling it started, unless its state tells it did.
+     */
+    private void awaitStarted(final MBeanServerConnection mbsc, final ObjectName webModule) throws IOException {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final NotificationListener listener = (notification, handback) -> {
+            if (STARTED_NOTIFICATIONS.contains(notification.getType())) {
+                started.countDown();
+            }
+        };
+
+        try {
+            mbsc.addNotificationListener(webModule, listener, null, null);
+        } catch (final InstanceNotFoundException e) {
+            // undeployed meanwhile
+            return;
+        } catch (final RuntimeOperationsException e) {
+            log.fine(webModule + " does not send notifications: " + e.getMessage());
+            return;
+        }
+        try {
+            // read after adding the listener, so a notification sent in between is not missed
+            if (!isStarting(getWebModuleState(mbsc, webModule))) {
+                return;
+            }
+            if (!started.await(configuration.getMetadataTimeoutInSeconds(), TimeUnit.SECONDS)) {
+                log.warning(webModule + " did not start within " + configuration.getMetadataTimeoutInSeconds() + " s");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + webModule + " to start");
+        } finally {
+            try {
+                mbsc.removeNotificationListener(webModule, listener);
+            } catch (final InstanceNotFoundException | ListenerNotFoundException | IOException e) {
+                log.fine("Unable to remove listener of " + webModule + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The name of the lifecycle state of the context's WebModule MBean, e.g. "STARTING".
+     *
+     * @return the state, or null if the MBean does not report its state
+     */
+    private static String getWebModuleState(final MBeanServerConnection mbsc, final ObjectName webModule)
+        throws IOException {
+
+        try {
+            return String.valueOf(mbsc.getAttribute(webModule, "stateName"));
+        } catch (final AttributeNotFoundException | InstanceNotFoundException | MBeanException
+            | ReflectionException e) {
+            log.fine("Unable to read the state of " + webModule + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether a WebModule of the given state is still to register servlets.
+     */
+    private static boolean isStarting(final String state) {
+
+        return state != null && STARTING_STATES.contains(state);
+    }
+
+    private static ObjectName getObjectName(final String name) {
 
-        ObjectName servletON;
         try {
-            servletON = ObjectName.getInstance(catalinaServlet);
+            return ObjectName.getInstance(name);
         } catch (final MalformedObjectNameException e) {
             throw new IllegalArgumentException("Unable to retrieve catalina MBeans for protocol metadata construction.\n"
-                + "Following object name is not valid: " + catalinaServlet, e);
+                + "Following object name is not valid: " + name, e);
         } catch (final NullPointerException e) {
             throw new IllegalArgumentException("Unable to retrieve catalina MBeans for protocol metadata construction.\n"
                 + "Object name must not be null", e);
         }
-
-        // this might return empty set
-        return mbsc.queryMBeans(servletON, null);
     }
 }
@@ -37,6 +37,16 @@ public class TomcatConfiguration implements ContainerConfiguration {
 
     private static final int MAX_PORT = 65535;
 
+    /**
+     * Metadata source retrieving the servlets of a deployment from the server through JMX
+     */
+    public static final String METADATA_SOURCE_JMX = "jmx";
+
+    /**
+     * Metadata source reading the servlets of a deployment from the archive, falling back to JMX
+     */
+    public static final String METADATA_SOURCE_ARCHIVE = "archive";
+
     private String bindAddress = "localhost";
 
     private int bindHttpPort = 8080;
@@ -57,6 +67,18 @@ public class TomcatConfiguration implements ContainerConfiguration {
 
     private boolean unpackArchive = false;
 
+    private int managerConnectTimeoutInSeconds = 10;
+
+    private int managerReadTimeoutInSeconds = 0;
+
+    private boolean deploymentCache = false;
+
+    private int deploymentTimeoutInSeconds = 0;
+
+    private int metadataTimeoutInSeconds = 10;
+
+    private String metadataSource = METADATA_SOURCE_JMX;
+
     private URI jmxUri;
 
     private URL managerUrl;
@@ -72,6 +94,32 @@ public class TomcatConfiguration implements ContainerConfiguration {
         Validate.isInRange(jmxServerPort, 0, MAX_PORT, "JMX server port must be in interval ]" + MIN_PORT + "," + MAX_PORT
             + "[, but was " + jmxServerPort);
 
+        if (managerConnectTimeoutInSeconds < 0 || managerReadTimeoutInSeconds < 0 || deploymentTimeoutInSeconds < 0) {
+            throw new ConfigurationException("Tomcat manager timeouts must not be negative");
+        }
+
+        if (!METADATA_SOURCE_JMX.equals(metadataSource) && !METADATA_SOURCE_ARCHIVE.equals(metadataSource)) {
+            throw new ConfigurationException("Metadata source must be either \"" + METADATA_SOURCE_JMX + "\" or \""
+                + METADATA_SOURCE_ARCHIVE + "\", but was " + metadataSource);
+        }
+
+        this.jmxUri = createJmxUri();
+        this.managerUrl = createManagerUrl();
+    }
+
+    /**
+     * Points the configuration at the ports a server actually listens on, e.g. one the container started with other
+     * ports than configured, and recreates the JMX URI and manager URL from them.
+     *
+     * @param bindHttpPort
+     *     the HTTP port of the server
+     * @param jmxPort
+     *     the JMX port of the server
+     */
+    public void applyServerPorts(final int bindHttpPort, final int jmxPort) {
+
+        this.bindHttpPort = bindHttpPort;
+        this.jmxPort = jmxPort;
         this.jmxUri = createJmxUri();
         this.managerUrl = createManagerUrl();
     }
@@ -177,6 +225,100 @@ public class TomcatConfiguration implements ContainerConfiguration {
         this.unpackArchive = unpackArchive;
     }
 
+    public int getManagerConnectTimeoutInSeconds() {
+
+        return managerConnectTimeoutInSeconds;
+    }
+
+    /**
+     * @param managerConnectTimeoutInSeconds
+     *     time to wait for a connection to the Tomcat manager to be established, 0 means no timeout
+     */
+    public void setManagerConnectTimeoutInSeconds(final int managerConnectTimeoutInSeconds) {
+
+        this.managerConnectTimeoutInSeconds = managerConnectTimeoutInSeconds;
+    }
+
+    public int getManagerReadTimeoutInSeconds() {
+
+        return managerReadTimeoutInSeconds;
+    }
+
+    /**
+     * @param managerReadTimeoutInSeconds
+     *     time to wait for the Tomcat manager to respond to a command, 0 means no timeout
+     */
+    public void setManagerReadTimeoutInSeconds(final int managerReadTimeoutInSeconds) {
+
+        this.managerReadTimeoutInSeconds = managerReadTimeoutInSeconds;
+    }
+
+    /**
+     * @return a switch indicating whether archives already known to the manager are redeployed from their tag
+     */
+    public boolean isDeploymentCache() {
+
+        return deploymentCache;
+    }
+
+    /**
+     * Sets archives to be deployed under a tag derived from their content. Deploying an archive with the same content
+     * to the same context path again redeploys the copy kept by the manager instead of uploading it.
+     *
+     * @param deploymentCache
+     *     a switch indicating whether the deployment cache is used
+     */
+    public void setDeploymentCache(final boolean deploymentCache) {
+
+        this.deploymentCache = deploymentCache;
+    }
+
+    public int getDeploymentTimeoutInSeconds() {
+
+        return deploymentTimeoutInSeconds;
+    }
+
+    /**
+     * @param deploymentTimeoutInSeconds
+     *     time a single deployment or undeployment may take before it is failed, 0 means no deadline
+     */
+    public void setDeploymentTimeoutInSeconds(final int deploymentTimeoutInSeconds) {
+
+        this.deploymentTimeoutInSeconds = deploymentTimeoutInSeconds;
+    }
+
+    public int getMetadataTimeoutInSeconds() {
+
+        return metadataTimeoutInSeconds;
+    }
+
+    /**
+     * @param metadataTimeoutInSeconds
+     *     time to wait for the servlets of a deployment to be registered in JMX, 0 means not to wait
+     */
+    public void setMetadataTimeoutInSeconds(final int metadataTimeoutInSeconds) {
+
+        this.metadataTimeoutInSeconds = metadataTimeoutInSeconds;
+    }
+
+    public String getMetadataSource() {
+
+        return metadataSource;
+    }
+
+    /**
+     * Sets where the servlets of a deployment are looked up: {@value #METADATA_SOURCE_JMX} queries the server, while
+     * {@value #METADATA_SOURCE_ARCHIVE} analyzes the deployed archive locally and only falls back to JMX if the archive
+     * declares no servlets.
+     *
+     * @param metadataSource
+     *     either {@value #METADATA_SOURCE_JMX} or {@value #METADATA_SOURCE_ARCHIVE}
+     */
+    public void setMetadataSource(final String metadataSource) {
+
+        this.metadataSource = metadataSource;
+    }
+
     /**
      * @param urlCharset
      *     the urlCharset to set
@@ -18,29 +18,48 @@
 package org.jboss.arquillian.container.tomcat;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.jboss.arquillian.container.spi.ConfigurationException;
 import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 
 /**
  * Based on AbstractCatalinaTask, abstract base class for Ant tasks that interact with the <em>Manager</em> web
  * application for
  * dynamically deploying and undeploying applications.
+ * <p>
+ * Instances are thread-safe. Deployments and undeployments fail once
+ * {@link TomcatConfiguration#getDeploymentTimeoutInSeconds()} has passed since they started executing, and the request
+ * in flight is then cancelled.
  *
  * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
  * @author Craig R. McClanahan
@@ -52,10 +71,39 @@ public class TomcatManager<C extends TomcatConfiguration> {
     // encoding of manager web app
     protected static final String MANAGER_CHARSET = "utf-8";
 
+    /**
+     * Length up to which the response body of a failed command is included in the exception
+     */
+    private static final int MAX_RESPONSE_MESSAGE_LENGTH = 500;
+
     private final C configuration;
 
     private final TomcatManagerCommandSpec tomcatManagerCommandSpec;
 
+    /**
+     * HTTP client shared by all manager commands of this instance, so that keep-alive connections are reused
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * Tags of the archives currently deployed through the deployment cache, by context path
+     */
+    private final Map<String, String> deployedTags = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Context path and tag pairs the manager keeps an archive copy for
+     */
+    private final Set<String> taggedNames = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger deploymentCacheHits = new AtomicInteger();
+
+    private final AtomicInteger deploymentCacheMisses = new AtomicInteger();
+
+    /**
+     * The deadline of the deployment command executed by the current thread, in {@link System#nanoTime()} terms
+     */
+    private final ThreadLocal<Long> commandDeadline = new ThreadLocal<Long>();
+
     /**
      * Creates a Tomcat manager abstraction
      *
@@ -66,6 +114,7 @@ public class TomcatManager<C extends TomcatConfiguration> {
 
         this.configuration = configuration;
         this.tomcatManagerCommandSpec = tomcatManagerCommandSpec;
+        this.httpClient = createHttpClient(configuration);
     }
 
     public void deploy(final String name, final URL content) throws IOException, DeploymentException {
@@ -74,24 +123,129 @@ public class TomcatManager<C extends TomcatConfiguration> {
         Validate.notNullOrEmpty(name, "Name must not be null or empty");
         Validate.notNull(content, "Content to be deployed must not be null");
 
-        final URLConnection conn = content.openConnection();
-        final int contentLength = conn.getContentLength();
-        final InputStream stream = new BufferedInputStream(conn.getInputStream());
+        withDeadline(() -> {
+            deployedTags.remove(name);
+            final URLConnection conn = content.openConnection();
+            final long contentLength = conn.getContentLengthLong();
+            final InputStream stream = new BufferedInputStream(conn.getInputStream());
+
+            execute(createDeployCommand(name), stream, contentType, contentLength);
+        });
+    }
+
+    /**
+     * Deploys the given archive by streaming its ZIP export straight into the request body, using chunked transfer
+     * encoding. Neither a temporary file nor the size of the archive is needed up front.
+     * <p>
+     * If the {@link TomcatConfiguration#isDeploymentCache() deployment cache} is enabled, the archive is deployed under
+     * a tag derived from its content. An archive with the same content which was deployed to the same context path
+     * before is then redeployed from the copy kept by the manager, and not uploaded again.
+     *
+     * @param name
+     *     the context path to deploy to
+     * @param archive
+     *     the archive to deploy
+     */
+    public void deploy(final String name, final Archive<?> archive) throws IOException, DeploymentException {
+
+        Validate.notNullOrEmpty(name, "Name must not be null or empty");
+        Validate.notNull(archive, "Archive to be deployed must not be null");
+
+        withDeadline(() -> deployArchive(name, archive));
+    }
+
+    private void deployArchive(final String name, final Archive<?> archive) throws IOException, DeploymentException {
+
+        final String contentType = "application/octet-stream";
+        final HttpRequest.BodyPublisher body =
+            HttpRequest.BodyPublishers.ofInputStream(() -> archive.as(ZipExporter.class).exportAsInputStream());
+
+        if (!configuration.isDeploymentCache()) {
+            deployedTags.remove(name);
+            execute(createDeployCommand(name), body, contentType);
+            return;
+        }
+
+        final String tag = ArchiveFingerprint.of(archive);
+        if (tag.equals(deployedTags.get(name))) {
+            logCacheHit(name, tag, "already deployed");
+            return;
+        }
+
+        final String taggedName = name + "@" + tag;
+        if (taggedNames.contains(taggedName)) {
+            try {
+                execute(createTaggedCommand(name, tag), null, null, -1L);
+                deployedTags.put(name, tag);
+                logCacheHit(name, tag, "redeployed from tag");
+                return;
+            } catch (final CommandFailedException e) {
+                // the manager no longer has the archive of the tag, e.g. after a restart, so upload it again
+                taggedNames.remove(taggedName);
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine("Unable to redeploy " + name + " from tag " + tag + ": " + e.getMessage());
+                }
+            }
+        }
+
+        final int misses = deploymentCacheMisses.incrementAndGet();
+        log.info("Deployment cache miss for " + name + " (tag " + tag + "), uploading archive; "
+            + deploymentCacheHits.get() + " hits, " + misses + " misses so far");
+        deployedTags.remove(name);
+        execute(createTaggedCommand(name, tag), body, contentType);
+        taggedNames.add(taggedName);
+        deployedTags.put(name, tag);
+    }
+
+    /**
+     * @return the number of deployments served by the deployment cache
+     */
+    public int getDeploymentCacheHits() {
+
+        return deploymentCacheHits.get();
+    }
+
+    /**
+     * @return the number of deployments which had to be uploaded while the deployment cache is enabled
+     */
+    public int getDeploymentCacheMisses() {
+
+        return deploymentCacheMisses.get();
+    }
+
+    /**
+     * Deploys an archive which is already present on the file system of the Tomcat server, so that no archive bytes
+     * have to be sent to the manager.
+     *
+     * @param name
+     *     the context path to deploy to
+     * @param archiveFile
+     *     the WAR file, readable by the Tomcat server
+     */
+    public void deployLocal(final String name, final File archiveFile) throws IOException, DeploymentException {
+
+        Validate.notNullOrEmpty(name, "Name must not be null or empty");
+        Validate.notNull(archiveFile, "Archive file to be deployed must not be null");
+        deployedTags.remove(name);
 
         // Building URL
         final StringBuilder command = new StringBuilder(tomcatManagerCommandSpec.getDeployCommand());
         try {
             command.append(URLEncoder.encode(name, configuration.getUrlCharset()));
+            command.append("&war=");
+            // a plain path, the manager does not decode file URIs, so spaces and non-ASCII characters would be lost
+            command.append(URLEncoder.encode(archiveFile.getAbsolutePath(), configuration.getUrlCharset()));
         } catch (final UnsupportedEncodingException e) {
             throw new DeploymentException("Unable to construct path for Tomcat manager", e);
         }
 
-        execute(command.toString(), stream, contentType, contentLength);
+        withDeadline(() -> execute(command.toString(), null, null, -1L));
     }
 
     public void undeploy(final String name) throws IOException, DeploymentException {
 
         Validate.notNullOrEmpty(name, "Undeployed name must not be null or empty");
+        deployedTags.remove(name);
 
         // Building URL
         final StringBuilder command = new StringBuilder(tomcatManagerCommandSpec.getUndeployCommand());
@@ -101,11 +255,11 @@ public class TomcatManager<C extends TomcatConfiguration> {
             throw new DeploymentException("Unable to construct path for Tomcat manager", e);
         }
 
-        execute(command.toString(), null, null, -1);
+        withDeadline(() -> execute(command.toString(), null, null, -1L));
     }
 
     public void serverInfo() throws IOException {
-        execute(tomcatManagerCommandSpec.getServerInfoCommand(), null, null, -1);
+        execute(tomcatManagerCommandSpec.getServerInfoCommand(), null, null, -1L);
     }
 
     /**
@@ -115,7 +269,7 @@ public class TomcatManager<C extends TomcatConfiguration> {
     @Deprecated
     public void list() throws IOException {
 
-        execute(tomcatManagerCommandSpec.getListCommand(), null, null, -1);
+        execute(tomcatManagerCommandSpec.getListCommand(), null, null, -1L);
     }
 
     public boolean isRunning() {
@@ -143,6 +297,19 @@ public class TomcatManager<C extends TomcatConfiguration> {
         return name;
     }
 
+    /**
+     * Execute the specified command, based on the configured properties.
+     *
+     * @deprecated use {@link #execute(String, InputStream, String, long)}, which takes content lengths above 2 GB
+     */
+    @Deprecated
+    protected void execute(final String command, final InputStream istream, final String contentType,
+        final int contentLength)
+        throws IOException {
+
+        execute(command, istream, contentType, (long) contentLength);
+    }
+
     /**
      * Execute the specified command, based on the configured properties. The input stream will be closed upon completion
      * of
@@ -162,62 +329,143 @@ public class TomcatManager<C extends TomcatConfiguration> {
      * @throws DeploymentException
      */
     protected void execute(final String command, final InputStream istream, final String contentType,
-        final int contentLength)
+        final long contentLength)
         throws IOException {
 
-        URLConnection conn = null;
         try {
-            // Create a connection for this command
-            conn = new URL(configuration.getManagerUrl() + command).openConnection();
-            final HttpURLConnection hconn = (HttpURLConnection) conn;
-
-            // Set up standard connection characteristics
-            hconn.setAllowUserInteraction(false);
-            hconn.setDoInput(true);
-            hconn.setUseCaches(false);
+            HttpRequest.BodyPublisher body = null;
             if (istream != null) {
-                hconn.setDoOutput(true);
-                hconn.setRequestMethod("PUT");
-                if (contentType != null) {
-                    hconn.setRequestProperty("Content-Type", contentType);
+                if (contentLength == 0) {
+                    // fromPublisher requires a positive length
+                    body = HttpRequest.BodyPublishers.noBody();
+                } else {
+                    body = HttpRequest.BodyPublishers.ofInputStream(() -> istream);
+                    if (contentLength > 0) {
+                        body = HttpRequest.BodyPublishers.fromPublisher(body, contentLength);
+                    }
                 }
-                if (contentLength >= 0) {
-                    hconn.setRequestProperty("Content-Length", "" + contentLength);
-
-                    hconn.setFixedLengthStreamingMode(contentLength);
-                }
-            } else {
-                hconn.setDoOutput(false);
-                hconn.setRequestMethod("GET");
-            }
-            hconn.setRequestProperty("User-Agent", "Arquillian-Tomcat-Manager-Util/1.0");
-            // add authorization header if password is provided
-            if (configuration.getUser() != null && configuration.getUser().length() != 0) {
-                hconn.setRequestProperty("Authorization", constructHttpBasicAuthHeader());
             }
-            hconn.setRequestProperty("Accept", "text/plain");
+            execute(command, body, contentType);
+        } finally {
+            IOUtil.closeQuietly(istream);
+        }
+    }
 
-            // Establish the connection with the server
-            hconn.connect();
+    /**
+     * Execute the specified command, based on the configured properties.
+     *
+     * @param command
+     *     Command to be executed
+     * @param body
+     *     Request body to include in an HTTP PUT, if any
+     * @param contentType
+     *     Content type to specify for the body, if any
+     *
+     * @throws IOException
+     */
+    protected void execute(final String command, final HttpRequest.BodyPublisher body, final String contentType)
+        throws IOException {
 
-            // Send the request data (if any)
-            if (istream != null) {
-                final BufferedOutputStream ostream = new BufferedOutputStream(hconn.getOutputStream(), 1024);
-                IOUtil.copy(istream, ostream);
-                ostream.flush();
-                ostream.close();
-                istream.close();
+        final HttpRequest.Builder request = HttpRequest.newBuilder(createCommandUri(command));
+
+        if (body != null) {
+            request.PUT(body);
+            if (contentType != null) {
+                request.header("Content-Type", contentType);
             }
+        } else {
+            request.GET();
+        }
+        request.header("User-Agent", "Arquillian-Tomcat-Manager-Util/1.0");
+        // add authorization header if password is provided
+        if (configuration.getUser() != null && configuration.getUser().length() != 0) {
+            request.header("Authorization", constructHttpBasicAuthHeader());
+        }
+        request.header("Accept", "text/plain");
+        final Duration timeout = getRequestTimeout(command);
+        if (timeout != null) {
+            // the client aborts the exchange once the timeout expires, so a command past its deadline stops there
+            request.timeout(timeout);
+        }
 
-            processResponse(command, hconn);
+        final HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException ioe =
+                new InterruptedIOException("The server command (" + command + ") was interrupted");
+            ioe.initCause(e);
+            throw ioe;
+        }
+
+        processResponse(command, response);
+    }
+
+    /**
+     * Processes the response of the given command. The response body is always fully consumed, so that the underlying
+     * connection can be returned to the keep-alive pool.
+     */
+    protected void processResponse(final String command, final HttpResponse<InputStream> response) throws IOException {
+
+        final StringBuilder content = new StringBuilder();
+        BufferedReader reader = null;
+        String firstLine = null;
+        try {
+            // Process the response message
+            reader = new BufferedReader(new InputStreamReader(response.body(), MANAGER_CHARSET));
+            String line = reader.readLine();
+            firstLine = line;
+            while (line != null) {
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(line);
+                }
+                if (content.length() < MAX_RESPONSE_MESSAGE_LENGTH) {
+                    content.append(line).append(' ');
+                }
+                line = reader.readLine();
+            }
         } finally {
-            IOUtil.closeQuietly(istream);
+            IOUtil.closeQuietly(reader);
         }
+
+        processResponse(command, response.statusCode(), toResponseMessage(content), firstLine);
     }
 
+    /**
+     * Processes the response of the given command.
+     *
+     * @deprecated commands are no longer sent with {@link HttpURLConnection}, override
+     *     {@link #processResponse(String, HttpResponse)} instead
+     */
+    @Deprecated
     protected void processResponse(final String command, final HttpURLConnection hconn) throws IOException {
 
         final int httpResponseCode = hconn.getResponseCode();
+        String firstLine = null;
+        if (httpResponseCode < 300) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(hconn.getInputStream(), MANAGER_CHARSET));
+                String line = reader.readLine();
+                firstLine = line;
+                while (line != null) {
+                    if (log.isLoggable(Level.FINE)) {
+                        log.fine(line);
+                    }
+                    line = reader.readLine();
+                }
+            } finally {
+                IOUtil.closeQuietly(reader);
+            }
+        }
+
+        processResponse(command, httpResponseCode, hconn.getResponseMessage(), firstLine);
+    }
+
+    private void processResponse(final String command, final int httpResponseCode, final String responseMessage,
+        final String firstLine) {
+
         // Supposes that <= 199 is not bad, but is it? See http://en.wikipedia.org/wiki/List_of_HTTP_status_codes
         if (httpResponseCode >= 400 && httpResponseCode < 500) {
             throw new ConfigurationException(
@@ -227,39 +475,33 @@ public class TomcatManager<C extends TomcatConfiguration> {
                     + ") failed with responseCode ("
                     + httpResponseCode
                     + ") and responseMessage ("
-                    + hconn.getResponseMessage()
+                    + responseMessage
                     + ").\n\n"
                     + "Please make sure that you provided correct credentials to an user which is able to access Tomcat manager application.\n"
                     + "These credentials can be specified in the Arquillian container configuration as \"user\" and \"pass\" properties.\n"
                     + "The user must have aapropriate role specified in tomcat-users.xml file.\n");
         } else if (httpResponseCode >= 300) {
             throw new IllegalStateException("The server command (" + command + ") failed with responseCode ("
-                + httpResponseCode + ") and responseMessage (" + hconn.getResponseMessage() + ").");
+                + httpResponseCode + ") and responseMessage (" + responseMessage + ").");
         }
-        BufferedReader reader = null;
-        try {
-            // Process the response message
-            reader = new BufferedReader(new InputStreamReader(hconn.getInputStream(), MANAGER_CHARSET));
-            String line = reader.readLine();
-            String contentError = null;
-            if (line != null && !line.startsWith("OK -")) {
-                contentError = line;
-            }
-            while (line != null) {
-                if (log.isLoggable(Level.FINE)) {
-                    log.fine(line);
-                }
-                line = reader.readLine();
-            }
-            if (contentError != null) {
-                throw new RuntimeException(
-                    "The server command (" + command + ") failed with content (" + contentError + ").");
-            }
-        } finally {
-            IOUtil.closeQuietly(reader);
+        if (firstLine != null && !firstLine.startsWith("OK -")) {
+            throw new CommandFailedException(
+                "The server command (" + command + ") failed with content (" + firstLine + ").");
         }
     }
 
+    /**
+     * The text of a response body, without markup, as the manager answers errors with HTML pages.
+     */
+    private static String toResponseMessage(final CharSequence content) {
+
+        final String message = content.toString().replaceAll("<[^>]*>", " ").replaceAll("\\s+", " ").trim();
+        if (message.length() > MAX_RESPONSE_MESSAGE_LENGTH) {
+            return message.substring(0, MAX_RESPONSE_MESSAGE_LENGTH) + "...";
+        }
+        return message;
+    }
+
     protected String constructHttpBasicAuthHeader() {
         // Set up an authorization header with our credentials
         final String credentials = configuration.getUser() + ":" + configuration.getPass();
@@ -271,4 +513,127 @@ public class TomcatManager<C extends TomcatConfiguration> {
         return "Basic " + Base64.getEncoder().encodeToString(credentialsBytes);
     }
 
+    private String createDeployCommand(final String name) throws DeploymentException {
+
+        // Building URL
+        final StringBuilder command = new StringBuilder(tomcatManagerCommandSpec.getDeployCommand());
+        try {
+            command.append(URLEncoder.encode(name, configuration.getUrlCharset()));
+        } catch (final UnsupportedEncodingException e) {
+            throw new DeploymentException("Unable to construct path for Tomcat manager", e);
+        }
+        return command.toString();
+    }
+
+    private String createTaggedCommand(final String name, final String tag) throws DeploymentException {
+
+        // Building URL
+        final StringBuilder command = new StringBuilder(tomcatManagerCommandSpec.getDeployCommand());
+        try {
+            command.append(URLEncoder.encode(name, configuration.getUrlCharset()));
+            command.append("&tag=");
+            command.append(URLEncoder.encode(tag, configuration.getUrlCharset()));
+        } catch (final UnsupportedEncodingException e) {
+            throw new DeploymentException("Unable to construct path for Tomcat manager", e);
+        }
+        return command.toString();
+    }
+
+    private void logCacheHit(final String name, final String tag, final String action) {
+
+        final int hits = deploymentCacheHits.incrementAndGet();
+        log.info("Deployment cache hit for " + name + " (tag " + tag + "), " + action + "; " + hits + " hits, "
+            + deploymentCacheMisses.get() + " misses so far");
+    }
+
+    private URI createCommandUri(final String command) throws IOException {
+
+        try {
+            return new URI(configuration.getManagerUrl() + command);
+        } catch (final URISyntaxException e) {
+            throw new MalformedURLException("Invalid Tomcat manager command URI: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Executes a deployment command within the configured deadline, which starts now. Requests still running when it
+     * has passed are cancelled.
+     */
+    private void withDeadline(final ManagerCommand command) throws IOException, DeploymentException {
+
+        final int deploymentTimeout = configuration.getDeploymentTimeoutInSeconds();
+        if (deploymentTimeout <= 0 || commandDeadline.get() != null) {
+            command.execute();
+            return;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(deploymentTimeout);
+        commandDeadline.set(deadline);
+        try {
+            command.execute();
+        } catch (final HttpTimeoutException e) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new DeploymentException(
+                    "Tomcat manager command did not complete within " + deploymentTimeout + " s", e);
+            }
+            throw e;
+        } finally {
+            commandDeadline.remove();
+        }
+    }
+
+    /**
+     * The timeout of a request: the read timeout, or the time left until the deadline of the deployment command being
+     * executed, whichever is shorter.
+     *
+     * @return the timeout, or null if there is none
+     */
+    private Duration getRequestTimeout(final String command) throws HttpTimeoutException {
+
+        final Duration readTimeout = configuration.getManagerReadTimeoutInSeconds() > 0
+            ? Duration.ofSeconds(configuration.getManagerReadTimeoutInSeconds()) : null;
+        final Long deadline = commandDeadline.get();
+        if (deadline == null) {
+            return readTimeout;
+        }
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new HttpTimeoutException("The server command (" + command + ") was not sent, its deadline passed");
+        }
+        final Duration timeout = Duration.ofNanos(remaining);
+        return readTimeout != null && readTimeout.compareTo(timeout) < 0 ? readTimeout : timeout;
+    }
+
+    private static HttpClient createHttpClient(final TomcatConfiguration configuration) {
+
+        final HttpClient.Builder builder = HttpClient.newBuilder()
+            // the manager application is plain HTTP/1.1; avoid h2c upgrade attempts on every request
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER);
+        if (configuration.getManagerConnectTimeoutInSeconds() > 0) {
+            builder.connectTimeout(Duration.ofSeconds(configuration.getManagerConnectTimeoutInSeconds()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Thrown if the manager answered a command with a FAIL message rather than an HTTP error.
+     */
+    private static final class CommandFailedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CommandFailedException(final String message) {
+
+            super(message);
+        }
+    }
+
+    /**
+     * A manager command executed within a deadline.
+     */
+    @FunctionalInterface
+    private interface ManagerCommand {
+
+        void execute() throws IOException, DeploymentException;
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.jboss.arquillian.container.tomcat.test.TestServlet;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+public class ArchiveFingerprintTest {
+
+    @Test
+    public void testFingerprintForSameContent() throws Exception {
+
+        final String first = ArchiveFingerprint.of(createArchive("content"));
+        // nested archives are exported with the current time, make sure that does not leak into the fingerprint
+        Thread.sleep(2000);
+        final String second = ArchiveFingerprint.of(createArchive("content"));
+
+        assertEquals(first, second);
+        assertEquals(64, first.length());
+    }
+
+    @Test
+    public void testFingerprintForDifferentContent() {
+
+        assertNotEquals(ArchiveFingerprint.of(createArchive("content")),
+            ArchiveFingerprint.of(createArchive("changed")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFingerprintForNull() {
+
+        ArchiveFingerprint.of(null);
+    }
+
+    private static WebArchive createArchive(final String resource) {
+
+        return ShrinkWrap.create(WebArchive.class, "test.war")
+            .addClass(TestServlet.class)
+            .addAsWebResource(new StringAsset(resource), "index.html")
+            .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "lib.jar")
+                .addAsResource(new StringAsset(resource), "lib.txt"));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import org.jboss.arquillian.container.tomcat.test.TestServlet;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+public class ArchiveMetadataParserTest {
+
+    private static final String METADATA_COMPLETE_WEB_XML = "<web-app xmlns=\"https://jakarta.ee/xml/ns/jakartaee\" "
+        + "version=\"5.0\" metadata-complete=\"true\"><servlet><servlet-name>Complete</servlet-name>"
+        + "<servlet-class>" + TestServlet.class.getName() + "</servlet-class></servlet></web-app>";
+
+    private static final String WEB_FRAGMENT_XML = "<web-fragment xmlns=\"https://jakarta.ee/xml/ns/jakartaee\" "
+        + "version=\"5.0\"><servlet><servlet-name>FragmentServlet</servlet-name>"
+        + "<servlet-class>" + TestServlet.class.getName() + "</servlet-class></servlet></web-fragment>";
+
+    private final ArchiveMetadataParser<TomcatConfiguration> parser =
+        new ArchiveMetadataParser<TomcatConfiguration>(new TomcatConfiguration());
+
+    @Test
+    public void testFindServletNamesFromWebXml() throws Exception {
+
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addClass(TestServlet.class)
+            .setWebXML("web-5.0.xml");
+
+        assertEquals(Set.of("TestServlet"), parser.findServletNames(archive));
+    }
+
+    @Test
+    public void testFindServletNamesFromAnnotationsAndFragments() throws Exception {
+
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addClasses(NamedServlet.class, DefaultNamedServlet.class, TestServlet.class)
+            .addAsLibrary(ShrinkWrap.create(JavaArchive.class, "fragment.jar")
+                .addAsManifestResource(new StringAsset(WEB_FRAGMENT_XML), "web-fragment.xml"));
+
+        final Set<String> servletNames = parser.findServletNames(archive);
+
+        assertEquals(3, servletNames.size());
+        assertTrue(servletNames.contains("Named"));
+        assertTrue(servletNames.contains(DefaultNamedServlet.class.getName()));
+        assertTrue(servletNames.contains("FragmentServlet"));
+    }
+
+    @Test
+    public void testFindServletNamesForMetadataComplete() throws Exception {
+
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addClasses(NamedServlet.class)
+            .setWebXML(new StringAsset(METADATA_COMPLETE_WEB_XML));
+
+        assertEquals(Set.of("Complete"), parser.findServletNames(archive));
+    }
+
+    @WebServlet(name = "Named", urlPatterns = {"/named", "/other"}, loadOnStartup = 1)
+    public static class NamedServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    @WebServlet("/default")
+    public static class DefaultNamedServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -18,7 +18,33 @@
 package org.jboss.arquillian.container.tomcat;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.arquillian.container.spi.ConfigurationException;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.After;
 import org.junit.Test;
 
 public class CommonTomcatManagerTest {
@@ -27,6 +53,21 @@ public class CommonTomcatManagerTest {
         new TomcatManager<TomcatConfiguration>(
             new TomcatConfiguration(), new Tomcat7ManagerCommandSpec());
 
+    private final List<String> requests = new CopyOnWriteArrayList<String>();
+
+    private final List<String> entries = new CopyOnWriteArrayList<String>();
+
+    private final Set<InetSocketAddress> clientAddresses = new CopyOnWriteArraySet<InetSocketAddress>();
+
+    private volatile Runnable requestHook = () -> {
+    };
+
+    private volatile int responseCode = 200;
+
+    private volatile String responseBody = "OK - Command executed\n";
+
+    private HttpServer server;
+
     @Test
     public void testNormalizeArchiveName() {
 
@@ -48,4 +89,227 @@ public class CommonTomcatManagerTest {
 
         COMMON_TOMCAT_MANAGER.normalizeArchiveName(null);
     }
+
+    @Test
+    public void testCommandsReuseKeepAliveConnection() throws IOException {
+
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer();
+
+        manager.serverInfo();
+        manager.serverInfo();
+        manager.serverInfo();
+
+        assertEquals(3, requests.size());
+        assertEquals(1, clientAddresses.size());
+    }
+
+    @Test
+    public void testDeployArchiveStreamsChunkedBody() throws Exception {
+
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer();
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+
+        manager.deploy("/test", archive);
+
+        assertEquals(1, requests.size());
+        assertEquals("PUT /manager/text/deploy?path=%2Ftest chunked", requests.get(0));
+        assertTrue(entries.contains("WEB-INF/beans.xml"));
+    }
+
+    @Test
+    public void testDeployEmptyContent() throws Exception {
+
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer();
+        final File emptyFile = File.createTempFile("empty", ".war");
+        emptyFile.deleteOnExit();
+
+        manager.deploy("/empty", emptyFile.toURI().toURL());
+
+        assertEquals(1, requests.size());
+        assertEquals("PUT /manager/text/deploy?path=%2Fempty null", requests.get(0));
+    }
+
+    @Test
+    public void testFailedCommandReportsResponseMessage() throws Exception {
+
+        responseCode = 401;
+        responseBody = "<html><body><h1>401 Unauthorized</h1>\n<p>You are not authorized</p></body></html>\n";
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer();
+
+        try {
+            manager.serverInfo();
+            fail("Expected the command to fail");
+        } catch (final ConfigurationException e) {
+            assertTrue(e.getMessage(),
+                e.getMessage().contains("responseMessage (401 Unauthorized You are not authorized)"));
+        }
+    }
+
+    @Test
+    public void testDeployArchiveRedeploysFromTagForSameContent() throws Exception {
+
+        final TomcatConfiguration configuration = new TomcatConfiguration();
+        configuration.setDeploymentCache(true);
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer(configuration);
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+        final String tag = ArchiveFingerprint.of(archive);
+
+        manager.deploy("/test", archive);
+        manager.undeploy("/test");
+        manager.deploy("/test", ShrinkWrap.create(WebArchive.class, "test.war")
+            .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml"));
+
+        assertEquals(3, requests.size());
+        assertEquals("PUT /manager/text/deploy?path=%2Ftest&tag=" + tag + " chunked", requests.get(0));
+        assertEquals("GET /manager/text/deploy?path=%2Ftest&tag=" + tag + " null", requests.get(2));
+        assertEquals(1, manager.getDeploymentCacheHits());
+        assertEquals(1, manager.getDeploymentCacheMisses());
+    }
+
+    @Test
+    public void testDeployArchiveUploadsAgainIfTagIsUnknown() throws Exception {
+
+        // the redeploy from the tag, the third command, fails as after a restart of the server
+        requestHook = () -> responseBody = requests.size() == 2 ? "FAIL - Unable to copy\n" : "OK - Command executed\n";
+        final TomcatConfiguration configuration = new TomcatConfiguration();
+        configuration.setDeploymentCache(true);
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer(configuration);
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+        final String tag = ArchiveFingerprint.of(archive);
+
+        manager.deploy("/test", archive);
+        manager.undeploy("/test");
+        manager.deploy("/test", archive);
+
+        assertEquals(4, requests.size());
+        assertEquals("PUT /manager/text/deploy?path=%2Ftest&tag=" + tag + " chunked", requests.get(3));
+        assertEquals(2, manager.getDeploymentCacheMisses());
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testDeployArchiveFailsIfTagRedeployIsForbidden() throws Exception {
+
+        requestHook = () -> responseCode = requests.size() == 2 ? 403 : 200;
+        final TomcatConfiguration configuration = new TomcatConfiguration();
+        configuration.setDeploymentCache(true);
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer(configuration);
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+
+        manager.deploy("/test", archive);
+        manager.undeploy("/test");
+        manager.deploy("/test", archive);
+    }
+
+    @Test
+    public void testDeployLocalSendsArchivePath() throws Exception {
+
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer();
+        final File archiveFile = new File("deployments dir/test.war").getAbsoluteFile();
+
+        manager.deployLocal("/test", archiveFile);
+
+        assertEquals(1, requests.size());
+        assertEquals("GET /manager/text/deploy?path=%2Ftest&war="
+            + URLEncoder.encode(archiveFile.getPath(), "ISO-8859-1") + " null", requests.get(0));
+    }
+
+    @Test(expected = DeploymentException.class)
+    public void testCommandFailsAfterDeadline() throws Exception {
+
+        requestHook = () -> sleep(3000);
+        final TomcatConfiguration configuration = new TomcatConfiguration();
+        configuration.setDeploymentTimeoutInSeconds(1);
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer(configuration);
+
+        manager.undeploy("/slow");
+    }
+
+    @Test
+    public void testDeadlineStartsWithEachCommand() throws Exception {
+
+        requestHook = () -> sleep(1200);
+        final TomcatConfiguration configuration = new TomcatConfiguration();
+        configuration.setDeploymentTimeoutInSeconds(2);
+        final TomcatManager<TomcatConfiguration> manager = startManagerServer(configuration);
+
+        // the second command completes later than 2 s after the first one started
+        manager.undeploy("/first");
+        manager.undeploy("/second");
+
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testIsRunningForNoServer() throws IOException {
+
+        final int freePort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            freePort = socket.getLocalPort();
+        }
+        final TomcatConfiguration configuration = new TomcatConfiguration();
+        configuration.setBindHttpPort(freePort);
+        configuration.validate();
+
+        assertFalse(new TomcatManager<TomcatConfiguration>(configuration, new Tomcat7ManagerCommandSpec()).isRunning());
+    }
+
+    @After
+    public void stopManagerServer() {
+
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static void sleep(final long millis) {
+
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts a minimal HTTP server answering every manager command with "OK" and returns a manager connected to it.
+     */
+    private TomcatManager<TomcatConfiguration> startManagerServer() throws IOException {
+
+        return startManagerServer(new TomcatConfiguration());
+    }
+
+    private TomcatManager<TomcatConfiguration> startManagerServer(final TomcatConfiguration configuration)
+        throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/manager", exchange -> {
+            requestHook.run();
+            clientAddresses.add(exchange.getRemoteAddress());
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+                + exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            if ("PUT".equals(exchange.getRequestMethod())) {
+                try (InputStream in = exchange.getRequestBody(); ZipInputStream zip = new ZipInputStream(in)) {
+                    ZipEntry entry;
+                    while ((entry = zip.getNextEntry()) != null) {
+                        entries.add(entry.getName());
+                    }
+                }
+            }
+            final byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(responseCode, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        configuration.setBindHttpPort(server.getAddress().getPort());
+        configuration.validate();
+        return new TomcatManager<TomcatConfiguration>(configuration, new Tomcat7ManagerCommandSpec());
+    }
 }
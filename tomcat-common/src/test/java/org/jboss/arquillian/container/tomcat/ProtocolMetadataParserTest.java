@@ -0,0 +1,228 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.jboss.arquillian.container.spi.client.protocol.metadata.HTTPContext;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProtocolMetadataParserTest {
+
+    private static final String SERVLET_NAME =
+        "Catalina:j2eeType=Servlet,WebModule=//localhost/test,name=TestServlet,J2EEApplication=none,J2EEServer=none";
+
+    private final AtomicInteger connects = new AtomicInteger();
+
+    private TomcatConfiguration configuration;
+
+    private Registry registry;
+
+    private JMXConnectorServer connectorServer;
+
+    private ProtocolMetadataParser<TomcatConfiguration> parser;
+
+    @Before
+    public void setUp() throws Exception {
+
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        registry = LocateRegistry.createRegistry(port);
+
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        mbeanServer.registerMBean(new Servlet(), new ObjectName(SERVLET_NAME));
+
+        configuration = new TomcatConfiguration();
+        configuration.setJmxPort(port);
+        configuration.validate();
+        connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(
+            new JMXServiceURL(configuration.getJmxUri().toASCIIString()), null, mbeanServer);
+        connectorServer.start();
+
+        parser = new ProtocolMetadataParser<TomcatConfiguration>(configuration) {
+
+            @Override
+            protected JMXConnector connect(final URI jmxUri) throws IOException {
+
+                connects.incrementAndGet();
+                return super.connect(jmxUri);
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        parser.close();
+        connectorServer.stop();
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(SERVLET_NAME));
+        UnicastRemoteObject.unexportObject(registry, true);
+    }
+
+    @Test
+    public void testRetrieveContextServletInfoReusesConnection() throws Exception {
+
+        parser.retrieveContextServletInfo("test");
+        final ProtocolMetaData metaData = parser.retrieveContextServletInfo("test");
+
+        assertEquals(1, connects.get());
+        final HTTPContext httpContext = metaData.getContexts(HTTPContext.class).iterator().next();
+        assertNotNull(httpContext.getServletByName("TestServlet"));
+    }
+
+    @Test
+    public void testRetrieveContextServletInfoReconnectsAfterClose() throws Exception {
+
+        parser.retrieveContextServletInfo("test");
+        parser.close();
+        parser.retrieveContextServletInfo("test");
+
+        assertEquals(2, connects.get());
+    }
+
+    @Test
+    public void testRetrieveContextServletInfoWaitsForWebModuleToStart() throws Exception {
+
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName webModuleName = new ObjectName(
+            "Catalina:j2eeType=WebModule,name=//localhost/starting,J2EEApplication=none,J2EEServer=none");
+        final WebModule webModule = new WebModule();
+        mbeanServer.registerMBean(webModule, webModuleName);
+        final ObjectName[] servletNames = {
+            new ObjectName(SERVLET_NAME.replace("//localhost/test", "//localhost/starting")),
+            new ObjectName(SERVLET_NAME.replace("//localhost/test", "//localhost/starting")
+                .replace("TestServlet", "ArquillianServletRunner"))};
+        final Thread registration = new Thread(() -> {
+            try {
+                for (final ObjectName servletName : servletNames) {
+                    Thread.sleep(300);
+                    mbeanServer.registerMBean(new Servlet(), servletName);
+                }
+                Thread.sleep(300);
+                webModule.started();
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        registration.start();
+        try {
+            final ProtocolMetaData metaData = parser.retrieveContextServletInfo("starting");
+
+            final HTTPContext httpContext = metaData.getContexts(HTTPContext.class).iterator().next();
+            assertNotNull(httpContext.getServletByName("TestServlet"));
+            assertNotNull(httpContext.getServletByName("ArquillianServletRunner"));
+        } finally {
+            registration.join();
+            mbeanServer.unregisterMBean(webModuleName);
+            for (final ObjectName servletName : servletNames) {
+                mbeanServer.unregisterMBean(servletName);
+            }
+        }
+    }
+
+    @Test
+    public void testRetrieveContextServletInfoOfStartedWebModule() throws Exception {
+
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName webModuleName = new ObjectName(
+            "Catalina:j2eeType=WebModule,name=//localhost/test,J2EEApplication=none,J2EEServer=none");
+        final WebModule webModule = new WebModule();
+        webModule.stateName = "STARTED";
+        mbeanServer.registerMBean(webModule, webModuleName);
+        try {
+            final long start = System.nanoTime();
+            final ProtocolMetaData metaData = parser.retrieveContextServletInfo("test");
+
+            assertTrue(
+                System.nanoTime() - start < TimeUnit.SECONDS.toNanos(configuration.getMetadataTimeoutInSeconds()));
+            final HTTPContext httpContext = metaData.getContexts(HTTPContext.class).iterator().next();
+            assertNotNull(httpContext.getServletByName("TestServlet"));
+        } finally {
+            mbeanServer.unregisterMBean(webModuleName);
+        }
+    }
+
+    @Test
+    public void testRetrieveContextServletInfoWithoutWebModuleOrServlets() throws Exception {
+
+        final long start = System.nanoTime();
+        final ProtocolMetaData metaData = parser.retrieveContextServletInfo("missing");
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(configuration.getMetadataTimeoutInSeconds()));
+        assertTrue(metaData.getContexts(HTTPContext.class).iterator().next().getServlets().isEmpty());
+    }
+
+    public interface ServletMBean {
+    }
+
+    public static class Servlet implements ServletMBean {
+    }
+
+    public interface WebModuleMBean {
+
+        // named for the "stateName" attribute of Tomcat's WebModule MBean
+        String getstateName();
+    }
+
+    public static class WebModule extends NotificationBroadcasterSupport implements WebModuleMBean {
+
+        private final AtomicInteger sequenceNumber = new AtomicInteger();
+
+        volatile String stateName = "STARTING";
+
+        /**
+         * Does what a context does once started: it sends the notification before its state becomes STARTED.
+         */
+        void started() {
+
+            sendNotification(new Notification("j2ee.state.running", this, sequenceNumber.incrementAndGet()));
+            stateName = "STARTED";
+        }
+
+        @Override
+        public String getstateName() {
+
+            return stateName;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import org.apache.catalina.webresources.AbstractResource;
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.cert.Certificate;
+import java.util.jar.Manifest;
+
+/**
+ * A file or directory of an {@link ArchiveResourceSet}. File content is read from the ShrinkWrap asset on first use
+ * and kept, as assets are not guaranteed to be cheap to open repeatedly.
+ */
+class ArchiveResource extends AbstractResource {
+
+    private static final Log log = LogFactory.getLog(ArchiveResource.class);
+
+    private final ArchiveResourceSet resourceSet;
+
+    private final File library;
+
+    private volatile byte[] content;
+
+    /**
+     * @param resourceSet the resource set this resource belongs to
+     * @param webAppPath the path of the resource within the web application, without a trailing slash
+     * @param library the file a library JAR was written to, or null for all other resources
+     */
+    ArchiveResource(final ArchiveResourceSet resourceSet, final String webAppPath, final File library) {
+        super(resourceSet.getResourceRoot(), resourceSet.isDirectory(webAppPath) && !webAppPath.equals("/")
+            ? webAppPath + "/" : webAppPath);
+        this.resourceSet = resourceSet;
+        this.library = library;
+    }
+
+    @Override
+    public long getLastModified() {
+        return library != null ? library.lastModified() : resourceSet.getLastModified();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return false;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return resourceSet.isDirectory(getPath());
+    }
+
+    @Override
+    public boolean isFile() {
+        return !isDirectory();
+    }
+
+    @Override
+    public boolean delete() {
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        final String path = getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public long getContentLength() {
+        if (isDirectory()) {
+            return -1;
+        }
+        if (library != null) {
+            return library.length();
+        }
+        final byte[] content = getContent();
+        return content == null ? -1 : content.length;
+    }
+
+    @Override
+    public String getCanonicalPath() {
+        return library != null ? library.getAbsolutePath() : null;
+    }
+
+    @Override
+    public boolean canRead() {
+        return true;
+    }
+
+    @Override
+    public byte[] getContent() {
+        if (isDirectory()) {
+            return null;
+        }
+        byte[] content = this.content;
+        if (content == null) {
+            try {
+                if (library != null) {
+                    content = Files.readAllBytes(library.toPath());
+                } else {
+                    final Asset asset = resourceSet.getAsset(getPath());
+                    try (InputStream in = asset.openStream()) {
+                        content = in.readAllBytes();
+                    }
+                }
+            } catch (final IOException e) {
+                log.error("Unable to read " + getWebappPath(), e);
+                return null;
+            }
+            this.content = content;
+        }
+        return content;
+    }
+
+    @Override
+    public long getCreation() {
+        return getLastModified();
+    }
+
+    @Override
+    public URL getURL() {
+        if (library != null) {
+            try {
+                return library.toURI().toURL();
+            } catch (final MalformedURLException e) {
+                log.error("Unable to create URL for " + library, e);
+                return null;
+            }
+        }
+        return resourceSet.createUrl(getPath());
+    }
+
+    @Override
+    public URL getCodeBase() {
+        return library != null ? getURL() : resourceSet.createCodeBaseUrl(getPath());
+    }
+
+    @Override
+    public Certificate[] getCertificates() {
+        return null;
+    }
+
+    @Override
+    public Manifest getManifest() {
+        return null;
+    }
+
+    @Override
+    protected InputStream doGetInputStream() {
+        if (isDirectory()) {
+            return null;
+        }
+        if (library != null) {
+            try {
+                return new FileInputStream(library);
+            } catch (final IOException e) {
+                log.error("Unable to open " + library, e);
+                return null;
+            }
+        }
+        final byte[] content = getContent();
+        return content == null ? null : new ByteArrayInputStream(content);
+    }
+
+    @Override
+    protected Log getLog() {
+        return log;
+    }
+
+    /**
+     * The web application path without the trailing slash of directories.
+     */
+    private String getPath() {
+        final String webAppPath = getWebappPath();
+        return webAppPath.length() > 1 && webAppPath.endsWith("/")
+            ? webAppPath.substring(0, webAppPath.length() - 1) : webAppPath;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.jboss.shrinkwrap.api.Archive;
+
+import java.io.File;
+
+/**
+ * A {@link StandardRoot} whose main resources are an {@link ArchiveResourceSet} instead of the context's docBase.
+ */
+public class ArchiveResourceRoot extends StandardRoot {
+
+    private final Archive<?> archive;
+
+    private final File libraryDirectory;
+
+    private ArchiveResourceSet archiveResourceSet;
+
+    /**
+     * @param context the context the resources belong to
+     * @param archive the archive to serve
+     * @param libraryDirectory the directory the JARs in "/WEB-INF/lib" are written to
+     */
+    public ArchiveResourceRoot(final Context context, final Archive<?> archive, final File libraryDirectory) {
+        super(context);
+        this.archive = archive;
+        this.libraryDirectory = libraryDirectory;
+    }
+
+    /**
+     * Called on every start, as the main resource set is destroyed when the root is stopped, e.g. on a reload.
+     */
+    @Override
+    protected WebResourceSet createMainResourceSet() {
+        releaseArchiveResourceSet();
+        archiveResourceSet = new ArchiveResourceSet(this, archive, libraryDirectory);
+        return archiveResourceSet;
+    }
+
+    @Override
+    protected void destroyInternal() throws LifecycleException {
+        super.destroyInternal();
+        releaseArchiveResourceSet();
+    }
+
+    private void releaseArchiveResourceSet() {
+        if (archiveResourceSet != null) {
+            archiveResourceSet.release();
+            archiveResourceSet = null;
+        }
+    }
+}
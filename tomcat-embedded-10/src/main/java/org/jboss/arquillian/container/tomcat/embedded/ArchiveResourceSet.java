@@ -0,0 +1,336 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResource;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.startup.ExpandWar;
+import org.apache.catalina.webresources.AbstractResourceSet;
+import org.apache.catalina.webresources.EmptyResource;
+import org.apache.catalina.webresources.TomcatURLStreamHandlerFactory;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read only {@link org.apache.catalina.WebResourceSet} serving the content of a ShrinkWrap {@link Archive} straight
+ * from memory, so a deployment neither has to be exported to a WAR file nor unpacked.
+ * <p>
+ * Resources are exposed with <code>shrinkwrap:</code> URLs. The exception are the JARs in "/WEB-INF/lib": Tomcat only
+ * accepts <code>file:</code> and <code>jar:</code> URLs for class path JARs, so these are served from the file they
+ * were added from, or if there is none, written to the given library directory when the resource set is initialized.
+ * </p>
+ */
+public class ArchiveResourceSet extends AbstractResourceSet {
+
+    static final String PROTOCOL = "shrinkwrap";
+
+    private static final String WEB_INF_LIB = "/WEB-INF/lib/";
+
+    private static final String WEB_INF_CLASSES = "/WEB-INF/classes/";
+
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+    /**
+     * Resource sets by the host part of their URLs, so URLs that were converted to a String and parsed again can still
+     * be resolved.
+     */
+    private static final Map<String, ArchiveResourceSet> REGISTRY = new ConcurrentHashMap<>();
+
+    private static final URLStreamHandler URL_STREAM_HANDLER = new ArchiveURLStreamHandler();
+
+    static {
+        TomcatURLStreamHandlerFactory.getInstance()
+            .addUserFactory(protocol -> PROTOCOL.equals(protocol) ? URL_STREAM_HANDLER : null);
+    }
+
+    private final String id = "archive-" + ID_SEQUENCE.incrementAndGet();
+
+    private final Map<String, Asset> files = new HashMap<>();
+
+    private final Map<String, Set<String>> directories = new HashMap<>();
+
+    private final Map<String, File> libraries = new HashMap<>();
+
+    private final File libraryDirectory;
+
+    private final long lastModified = System.currentTimeMillis();
+
+    /**
+     * Creates a resource set for the given archive. The content of the archive is captured right away, later changes
+     * to the archive are not reflected.
+     *
+     * @param root the web resource root this set belongs to
+     * @param archive the archive to serve
+     * @param libraryDirectory the directory the JARs in "/WEB-INF/lib" are written to
+     */
+    public ArchiveResourceSet(final WebResourceRoot root, final Archive<?> archive, final File libraryDirectory) {
+        setRoot(root);
+        setWebAppMount("/");
+        this.libraryDirectory = libraryDirectory;
+
+        directories.put("/", new TreeSet<String>());
+        for (final Map.Entry<ArchivePath, Node> entry : archive.getContent().entrySet()) {
+            final String path = entry.getKey().get();
+            final Asset asset = entry.getValue().getAsset();
+            if (asset == null) {
+                addDirectory(path);
+            } else {
+                files.put(path, asset);
+                addDirectory(getParent(path)).add(getName(path));
+            }
+        }
+    }
+
+    @Override
+    protected void initInternal() throws LifecycleException {
+        for (final Map.Entry<String, Asset> file : files.entrySet()) {
+            final String path = file.getKey();
+            if (isLibrary(path) && file.getValue() instanceof FileAsset
+                && ((FileAsset) file.getValue()).getSource().isFile()) {
+                // Backed by a file already, e.g. resolved from the local Maven repository, so served from there
+                libraries.put(path, ((FileAsset) file.getValue()).getSource());
+            } else if (isLibrary(path)) {
+                final File library = new File(libraryDirectory, getName(path));
+                if (!libraryDirectory.isDirectory() && !libraryDirectory.mkdirs()) {
+                    throw new LifecycleException("Unable to create library directory " + libraryDirectory);
+                }
+                try (InputStream in = file.getValue().openStream()) {
+                    Files.copy(in, library.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (final IOException e) {
+                    throw new LifecycleException("Unable to write library " + path + " to " + library, e);
+                }
+                libraries.put(path, library);
+            }
+        }
+        REGISTRY.put(id, this);
+    }
+
+    /**
+     * Stops resolving the URLs of this resource set and removes the JARs written for it. Called by the owning root once
+     * all resource sets, including the ones opened on these JARs, have been destroyed.
+     */
+    void release() {
+        REGISTRY.remove(id);
+        if (libraryDirectory.exists()) {
+            ExpandWar.delete(libraryDirectory);
+        }
+    }
+
+    @Override
+    public WebResource getResource(final String path) {
+        checkPath(path);
+        final String normalizedPath = normalize(path);
+
+        final File library = libraries.get(normalizedPath);
+        if (library != null) {
+            return new ArchiveResource(this, normalizedPath, library);
+        }
+        if (files.containsKey(normalizedPath) || directories.containsKey(normalizedPath)) {
+            return new ArchiveResource(this, normalizedPath, null);
+        }
+        return new EmptyResource(getRoot(), path);
+    }
+
+    @Override
+    public String[] list(final String path) {
+        checkPath(path);
+        final Set<String> children = directories.get(normalize(path));
+        return children == null ? new String[0] : children.toArray(new String[0]);
+    }
+
+    @Override
+    public Set<String> listWebAppPaths(final String path) {
+        checkPath(path);
+        final String normalizedPath = normalize(path);
+        final Set<String> children = directories.get(normalizedPath);
+        if (children == null) {
+            return Collections.emptySet();
+        }
+        final String prefix = normalizedPath.equals("/") ? "/" : normalizedPath + "/";
+        final Set<String> webAppPaths = new LinkedHashSet<>();
+        for (final String child : children) {
+            final String childPath = prefix + child;
+            webAppPaths.add(directories.containsKey(childPath) ? childPath + "/" : childPath);
+        }
+        return webAppPaths;
+    }
+
+    @Override
+    public boolean mkdir(final String path) {
+        checkPath(path);
+        return false;
+    }
+
+    @Override
+    public boolean write(final String path, final InputStream is, final boolean overwrite) {
+        checkPath(path);
+        return false;
+    }
+
+    @Override
+    public URL getBaseUrl() {
+        return createUrl("/");
+    }
+
+    @Override
+    public void setReadOnly(final boolean readOnly) {
+        if (!readOnly) {
+            throw new IllegalArgumentException("An archive resource set is always read only");
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public void gc() {
+        // Nothing is held open
+    }
+
+    WebResourceRoot getResourceRoot() {
+        return getRoot();
+    }
+
+    boolean isDirectory(final String path) {
+        return directories.containsKey(path);
+    }
+
+    Asset getAsset(final String path) {
+        return files.get(path);
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * The URL of the given resource. Classes share the URL of "/WEB-INF/classes/" as their code base, just like they
+     * would for an unpacked WAR.
+     */
+    URL createUrl(final String path) {
+        try {
+            return new URL(PROTOCOL, id, -1, isDirectory(path) && !path.endsWith("/") ? path + "/" : path,
+                URL_STREAM_HANDLER);
+        } catch (final MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    URL createCodeBaseUrl(final String path) {
+        if (path.startsWith(WEB_INF_CLASSES) && path.endsWith(".class")) {
+            return createUrl(WEB_INF_CLASSES);
+        }
+        return createUrl(path);
+    }
+
+    private Set<String> addDirectory(final String path) {
+        Set<String> children = directories.get(path);
+        if (children == null) {
+            children = new TreeSet<>();
+            directories.put(path, children);
+            if (!path.equals("/")) {
+                addDirectory(getParent(path)).add(getName(path));
+            }
+        }
+        return children;
+    }
+
+    private static boolean isLibrary(final String path) {
+        return path.startsWith(WEB_INF_LIB) && path.endsWith(".jar") && path.indexOf('/', WEB_INF_LIB.length()) < 0;
+    }
+
+    private static String normalize(final String path) {
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    private static String getParent(final String path) {
+        final int index = path.lastIndexOf('/');
+        return index <= 0 ? "/" : path.substring(0, index);
+    }
+
+    private static String getName(final String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Resolves <code>shrinkwrap:</code> URLs against the registered resource sets.
+     */
+    private static class ArchiveURLStreamHandler extends URLStreamHandler {
+
+        @Override
+        protected URLConnection openConnection(final URL url) throws IOException {
+            final ArchiveResourceSet resourceSet = REGISTRY.get(url.getHost());
+            if (resourceSet == null) {
+                throw new IOException("Archive of " + url + " is no longer deployed");
+            }
+            final WebResource resource = resourceSet.getResource(url.getPath());
+            if (!resource.exists()) {
+                throw new IOException("Resource " + url + " does not exist");
+            }
+            return new URLConnection(url) {
+
+                @Override
+                public void connect() {
+                    connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    final InputStream in = resource.getInputStream();
+                    if (in == null) {
+                        throw new IOException("Resource " + url + " is a directory");
+                    }
+                    return in;
+                }
+
+                @Override
+                public long getContentLengthLong() {
+                    return resource.getContentLength();
+                }
+
+                @Override
+                public long getLastModified() {
+                    return resource.getLastModified();
+                }
+            };
+        }
+    }
+}
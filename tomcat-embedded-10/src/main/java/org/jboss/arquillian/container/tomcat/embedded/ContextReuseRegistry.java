@@ -0,0 +1,272 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the contexts of undeployed archives running, so a later deployment of an identical archive can reuse the
+ * context instead of starting a new one. Contexts are identified by a fingerprint of the archive name and content.
+ * <p>
+ * The number of idle contexts and the total content size of their archives, as approximation of the memory they hold,
+ * are bounded. When a bound is exceeded the least recently used idle contexts are evicted, and have to be undeployed
+ * by the caller.
+ * </p>
+ */
+class ContextReuseRegistry {
+
+    private final int maxContexts;
+
+    private final long maxSize;
+
+    private final LinkedHashMap<String, Entry> idleContexts = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long idleSize;
+
+    private int hits;
+
+    private int misses;
+
+    private int evictions;
+
+    /**
+     * @param maxContexts the maximum number of idle contexts
+     * @param maxSize the maximum total content size of the archives of idle contexts, in bytes
+     */
+    ContextReuseRegistry(final int maxContexts, final long maxSize) {
+        this.maxContexts = maxContexts;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Takes the idle context of an archive with the given fingerprint, if there is one.
+     *
+     * @return the entry of the idle context, or null
+     */
+    synchronized Entry take(final String fingerprint) {
+        final Entry entry = idleContexts.remove(fingerprint);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        idleSize -= entry.getSize();
+        return entry;
+    }
+
+    /**
+     * Takes the idle context of an archive with the given name, e.g. deployed from an earlier version of an archive,
+     * as it occupies the context name.
+     *
+     * @return the entry of the idle context, or null
+     */
+    synchronized Entry takeByArchiveName(final String archiveName) {
+        for (final Iterator<Entry> it = idleContexts.values().iterator(); it.hasNext(); ) {
+            final Entry entry = it.next();
+            if (entry.getArchiveName().equals(archiveName)) {
+                it.remove();
+                idleSize -= entry.getSize();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps the context of an undeployed archive for reuse.
+     *
+     * @return the entries of the idle contexts evicted to stay within bounds, possibly including the given one
+     */
+    synchronized List<Entry> park(final Entry entry) {
+        idleContexts.put(entry.getFingerprint(), entry);
+        idleSize += entry.getSize();
+
+        final List<Entry> evicted = new ArrayList<>();
+        for (final Iterator<Entry> it = idleContexts.values().iterator();
+            it.hasNext() && (idleContexts.size() > maxContexts || idleSize > maxSize); ) {
+            final Entry eldest = it.next();
+            it.remove();
+            idleSize -= eldest.getSize();
+            evicted.add(eldest);
+        }
+        evictions += evicted.size();
+        return evicted;
+    }
+
+    /**
+     * Removes all idle contexts.
+     *
+     * @return the entries of the removed idle contexts
+     */
+    synchronized List<Entry> clear() {
+        final List<Entry> entries = new ArrayList<>(idleContexts.values());
+        idleContexts.clear();
+        idleSize = 0;
+        return entries;
+    }
+
+    synchronized int getHits() {
+        return hits;
+    }
+
+    synchronized int getMisses() {
+        return misses;
+    }
+
+    synchronized int getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Computes the fingerprint, content digests and content size of an archive. Assets backed by a file are identified
+     * by path, size and modification time rather than read, nested archives by their content. Unlike
+     * {@link org.jboss.arquillian.container.tomcat.ArchiveFingerprint} this keeps a digest per entry, which an
+     * incremental redeployment compares to find the changed entries.
+     */
+    static Entry describe(final Archive<?> archive) throws IOException {
+        final Map<String, String> contentDigests = new TreeMap<>();
+        final long size = digest(archive, contentDigests);
+
+        // Sorted, so the fingerprint does not depend on the order content was added in
+        final MessageDigest digest = newDigest();
+        digest.update(archive.getName().getBytes(StandardCharsets.UTF_8));
+        for (final Map.Entry<String, String> contentDigest : contentDigests.entrySet()) {
+            digest.update((contentDigest.getKey() + '=' + contentDigest.getValue() + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+        }
+        return new Entry(toHex(digest), archive.getName(), size, Collections.unmodifiableMap(contentDigests));
+    }
+
+    /**
+     * Puts the digest of each node of the archive by path, an empty one for directories.
+     *
+     * @return the content size of the archive
+     */
+    private static long digest(final Archive<?> archive, final Map<String, String> contentDigests) throws IOException {
+        long size = 0;
+        final byte[] buffer = new byte[8192];
+        for (final Map.Entry<ArchivePath, Node> node : archive.getContent().entrySet()) {
+            final Asset asset = node.getValue().getAsset();
+            if (asset == null) {
+                contentDigests.put(node.getKey().get(), "");
+                continue;
+            }
+
+            final MessageDigest digest = newDigest();
+            if (asset instanceof ArchiveAsset) {
+                final Map<String, String> nestedDigests = new TreeMap<>();
+                size += digest(((ArchiveAsset) asset).getArchive(), nestedDigests);
+                digest.update(nestedDigests.toString().getBytes(StandardCharsets.UTF_8));
+            } else if (asset instanceof FileAsset) {
+                final File source = ((FileAsset) asset).getSource();
+                digest.update((source.getAbsolutePath() + '|' + source.length() + '|' + source.lastModified())
+                    .getBytes(StandardCharsets.UTF_8));
+                size += source.length();
+            } else {
+                try (InputStream in = asset.openStream()) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                        size += read;
+                    }
+                }
+            }
+            contentDigests.put(node.getKey().get(), toHex(digest));
+        }
+        return size;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(final MessageDigest digest) {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * A context kept for reuse.
+     */
+    static final class Entry {
+
+        private final String fingerprint;
+
+        private final String archiveName;
+
+        private final long size;
+
+        private final Map<String, String> contentDigests;
+
+        Entry(final String fingerprint, final String archiveName, final long size) {
+            this(fingerprint, archiveName, size, Collections.<String, String>emptyMap());
+        }
+
+        Entry(final String fingerprint, final String archiveName, final long size,
+            final Map<String, String> contentDigests) {
+            this.fingerprint = fingerprint;
+            this.archiveName = archiveName;
+            this.size = size;
+            this.contentDigests = contentDigests;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        String getArchiveName() {
+            return archiveName;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * @return the digests of the archive content by path, empty for directories
+         */
+        Map<String, String> getContentDigests() {
+            return contentDigests;
+        }
+    }
+}
@@ -16,12 +16,25 @@
  */
 package org.jboss.arquillian.container.tomcat.embedded;
 
+import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.Wrapper;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.startup.Constants;
 import org.apache.catalina.startup.ContextConfig;
 import org.apache.catalina.startup.Tomcat;
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.JarScanFilter;
+import org.apache.tomcat.util.descriptor.web.WebXml;
+import org.apache.tomcat.util.scan.JarFactory;
+import org.apache.tomcat.util.scan.StandardJarScanFilter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -38,12 +51,23 @@ import java.util.UUID;
  * <p>
  * This implementation also marks an unpacked WAR for deletion when the context is stopped.
  * </p>
+ * <p>
+ * If the {@link EmbeddedHostConfig} of the host asks for lean contexts, only the default servlet part of these defaults
+ * is applied, i.e. no JSP servlet is registered, and JARs are not scanned for TLDs. Container provided
+ * ServletContainerInitializers can be skipped with the container SCI filter of the host config.
+ * </p>
+ * <p>
+ * If the {@link EmbeddedHostConfig} of the host has a {@link JarScanCache}, annotation processing of library JARs only
+ * parses the classes the cache knows to be annotated.
+ * </p>
  *
  * @author Dan Allen
  * @author <a href="mailto:ian@ianbrandt.com">Ian Brandt</a>
  */
 public class EmbeddedContextConfig extends ContextConfig {
 
+    private static final Log log = LogFactory.getLog(EmbeddedContextConfig.class);
+
     /**
      * Initialize the context config so to disable processing of the default global web.xml. As an embedded container we
      * lack
@@ -60,8 +84,39 @@ public class EmbeddedContextConfig extends ContextConfig {
     @Override
     protected synchronized void beforeStart() {
         super.beforeStart();
-        ((StandardContext) context).setJ2EEServer("Arquillian-" + UUID.randomUUID());
-        Tomcat.initWebappDefaults(context);
+        final StandardContext standardContext = (StandardContext) context;
+        standardContext.setJ2EEServer("Arquillian-" + UUID.randomUUID());
+
+        final EmbeddedHostConfig hostConfig = getHostConfig();
+        if (hostConfig != null && hostConfig.getContainerSciFilter() != null) {
+            standardContext.setContainerSciFilter(hostConfig.getContainerSciFilter());
+        }
+        if (hostConfig != null && hostConfig.isLeanContext()) {
+            initLeanWebappDefaults();
+        } else {
+            Tomcat.initWebappDefaults(context);
+        }
+    }
+
+    /**
+     * The part of {@link Tomcat#initWebappDefaults(org.apache.catalina.Context)} not related to JSPs, plus disabling
+     * TLD scanning of JARs not explicitly listed in the jar scan filter.
+     */
+    private void initLeanWebappDefaults() {
+        final Wrapper servlet = Tomcat.addServlet(context, "default", "org.apache.catalina.servlets.DefaultServlet");
+        servlet.setLoadOnStartup(1);
+        servlet.setOverridable(true);
+        context.addServletMappingDecoded("/", "default");
+
+        context.setSessionTimeout(30);
+        Tomcat.addDefaultMimeTypeMappings(context);
+        context.addWelcomeFile("index.html");
+        context.addWelcomeFile("index.htm");
+
+        final JarScanFilter jarScanFilter = context.getJarScanner().getJarScanFilter();
+        if (jarScanFilter instanceof StandardJarScanFilter) {
+            ((StandardJarScanFilter) jarScanFilter).setDefaultTldScan(false);
+        }
     }
 
     /**
@@ -69,6 +124,10 @@ public class EmbeddedContextConfig extends ContextConfig {
      */
     @Override
     protected void fixDocBase() throws IOException {
+        if (context.getResources() instanceof ArchiveResourceRoot) {
+            // Served from memory, there is no docBase to fix
+            return;
+        }
         super.fixDocBase();
         // If this field is not null, the unpacked WAR is removed when
         // the context is closed. This is normally used by the antiLocking
@@ -76,4 +135,52 @@ public class EmbeddedContextConfig extends ContextConfig {
         // least for an embedded container.
         originalDocBase = context.getDocBase();
     }
+
+    /**
+     * Override to only process the annotated classes of a JAR, as known by the {@link JarScanCache}. This is only done
+     * if no ServletContainerInitializer declares {@code @HandlesTypes}, as matching those types requires every class of
+     * the JAR; otherwise the JAR is processed as usual. The map is raw, as its value type is not visible outside of
+     * {@link ContextConfig}.
+     */
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    protected void processAnnotationsJar(final URL url, final WebXml fragment, final boolean handlesTypesOnly,
+        final Map javaClassCache) {
+        final EmbeddedHostConfig hostConfig = getHostConfig();
+        final JarScanCache jarScanCache = hostConfig == null ? null : hostConfig.getJarScanCache();
+        if (jarScanCache == null || handlesTypesAnnotations || handlesTypesNonAnnotations) {
+            super.processAnnotationsJar(url, fragment, handlesTypesOnly, javaClassCache);
+            return;
+        }
+        if (handlesTypesOnly) {
+            // Without @HandlesTypes there is nothing to look for
+            return;
+        }
+
+        try {
+            final Set<String> annotatedClasses = jarScanCache.getAnnotatedClasses(url);
+            if (annotatedClasses.isEmpty()) {
+                return;
+            }
+            try (Jar jar = JarFactory.newInstance(url)) {
+                for (final String entryName : annotatedClasses) {
+                    try (InputStream is = jar.getInputStream(entryName)) {
+                        processAnnotationsStream(is, fragment, false, javaClassCache);
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            log.warn("Unable to use the JAR scan cache for " + url + ", processing all classes", e);
+            super.processAnnotationsJar(url, fragment, handlesTypesOnly, javaClassCache);
+        }
+    }
+
+    private EmbeddedHostConfig getHostConfig() {
+        for (final LifecycleListener listener : context.getParent().findLifecycleListeners()) {
+            if (listener instanceof EmbeddedHostConfig) {
+                return (EmbeddedHostConfig) listener;
+            }
+        }
+        return null;
+    }
 }
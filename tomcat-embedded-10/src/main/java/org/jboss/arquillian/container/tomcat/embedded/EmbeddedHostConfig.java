@@ -16,11 +16,24 @@
  */
 package org.jboss.arquillian.container.tomcat.embedded;
 
+import org.apache.catalina.Container;
+import org.apache.catalina.ContainerEvent;
+import org.apache.catalina.ContainerListener;
+import org.apache.catalina.Context;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.startup.ContextConfig;
 import org.apache.catalina.startup.HostConfig;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.startup.Tomcat.DefaultWebXmlListener;
 import org.apache.catalina.util.ContextName;
+import org.apache.catalina.webresources.StandardRoot;
+import org.jboss.shrinkwrap.api.Archive;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A custom {@link HostConfig} for use in the Embedded Tomcat container integration for Arquillian.
@@ -47,10 +60,69 @@ import org.apache.catalina.util.ContextName;
  * listener
  * prior to the start life cycle.
  * </p>
+ * <p>
+ * Registered as {@link ContainerListener} of the host as well, this configuration can mount library JARs that are not
+ * part of the deployed WAR into its "/WEB-INF/lib" before the context starts.
+ * </p>
  *
  * @author <a href="mailto:ian@ianbrandt.com">Ian Brandt</a>
  */
-public class EmbeddedHostConfig extends HostConfig {
+public class EmbeddedHostConfig extends HostConfig implements ContainerListener {
+
+    /**
+     * Library JARs to mount by the name of the context being deployed. Contexts are added to the host by its start
+     * stop executor, hence the concurrent map.
+     */
+    private final Map<String, Map<String, File>> externalLibraries = new ConcurrentHashMap<>();
+
+    private JarScanCache jarScanCache;
+
+    private boolean leanContext;
+
+    private String containerSciFilter;
+
+    /**
+     * @return the cache used by {@link EmbeddedContextConfig} for annotation scanning of library JARs, or null
+     */
+    public JarScanCache getJarScanCache() {
+        return jarScanCache;
+    }
+
+    /**
+     * @param jarScanCache the cache used by {@link EmbeddedContextConfig} for annotation scanning of library JARs
+     */
+    public void setJarScanCache(final JarScanCache jarScanCache) {
+        this.jarScanCache = jarScanCache;
+    }
+
+    /**
+     * @return true if contexts are started without the JSP servlet and without TLD scanning
+     */
+    public boolean isLeanContext() {
+        return leanContext;
+    }
+
+    /**
+     * @param leanContext true if contexts are to be started without the JSP servlet and without TLD scanning
+     */
+    public void setLeanContext(final boolean leanContext) {
+        this.leanContext = leanContext;
+    }
+
+    /**
+     * @return the regular expression of the container provided ServletContainerInitializers to skip, or null
+     */
+    public String getContainerSciFilter() {
+        return containerSciFilter;
+    }
+
+    /**
+     * @param containerSciFilter the regular expression of the container provided ServletContainerInitializers to skip
+     * @see org.apache.catalina.core.StandardContext#setContainerSciFilter(String)
+     */
+    public void setContainerSciFilter(final String containerSciFilter) {
+        this.containerSciFilter = containerSciFilter;
+    }
 
     /**
      * Deploy a WAR with the given file name to be found in the configured app base.
@@ -58,13 +130,79 @@ public class EmbeddedHostConfig extends HostConfig {
      * @param warFileName the WAR file name, e.g. "ROOT.war".
      */
     public void deployWAR(final String warFileName) {
+        deployWAR(warFileName, Collections.<String, File>emptyMap());
+    }
+
+    /**
+     * Deploy a WAR with the given file name to be found in the configured app base, mounting the given library JARs.
+     *
+     * @param warFileName the WAR file name, e.g. "ROOT.war".
+     * @param libraries the library JARs by their path in the web application, e.g. "/WEB-INF/lib/foo.jar".
+     */
+    public void deployWAR(final String warFileName, final Map<String, File> libraries) {
         final String contextName = getContextName(warFileName);
 
-        deployWARs(host.getAppBaseFile(), new String[]{warFileName});
+        externalLibraries.put(contextName, libraries);
+        try {
+            deployWARs(host.getAppBaseFile(), new String[]{warFileName});
+        } finally {
+            externalLibraries.remove(contextName);
+        }
+
+        tryAddServiced(contextName);
+    }
+
+    /**
+     * Deploy an exploded web application directory with the given name to be found in the configured app base.
+     *
+     * @param directoryName the directory name, e.g. "ROOT".
+     */
+    public void deployDirectory(final String directoryName) {
+        deployDirectory(directoryName, Collections.<String, File>emptyMap());
+    }
+
+    /**
+     * Deploy an exploded web application directory with the given name to be found in the configured app base,
+     * mounting the given library JARs.
+     *
+     * @param directoryName the directory name, e.g. "ROOT".
+     * @param libraries the library JARs by their path in the web application, e.g. "/WEB-INF/lib/foo.jar".
+     */
+    public void deployDirectory(final String directoryName, final Map<String, File> libraries) {
+        final String contextName = getContextName(directoryName);
+
+        externalLibraries.put(contextName, libraries);
+        try {
+            deployDirectories(host.getAppBaseFile(), new String[]{directoryName});
+        } finally {
+            externalLibraries.remove(contextName);
+        }
 
         tryAddServiced(contextName);
     }
 
+    /**
+     * Deploy an archive served from memory by an {@link ArchiveResourceRoot}, without a WAR file or directory in the
+     * app base. As there is no WAR, a "META-INF/context.xml" is not processed.
+     *
+     * @param archive the archive, whose name is used as WAR file name, e.g. "ROOT.war".
+     * @param libraryDirectory the directory the JARs in "/WEB-INF/lib" are written to.
+     */
+    public void deployArchive(final Archive<?> archive, final File libraryDirectory) {
+        final ContextName contextName = new ContextName(archive.getName(), true);
+
+        final StandardContext context = new StandardContext();
+        context.setName(contextName.getName());
+        context.setPath(contextName.getPath());
+        context.setWebappVersion(contextName.getVersion());
+        context.setResources(new ArchiveResourceRoot(context, archive, libraryDirectory));
+        context.addLifecycleListener(new EmbeddedContextConfig());
+
+        host.addChild(context);
+
+        tryAddServiced(contextName.getName());
+    }
+
     /**
      * Undeploy a WAR with the given file name.
      *
@@ -78,6 +216,33 @@ public class EmbeddedHostConfig extends HostConfig {
         removeServiced(contextName);
     }
 
+    /**
+     * Mounts the library JARs registered for a context as pre resources once it is added to the host, which happens
+     * before it is started. Tomcat then opens them as class path JARs and scans them, just like JARs of the WAR.
+     */
+    @Override
+    public void containerEvent(final ContainerEvent event) {
+        if (!Container.ADD_CHILD_EVENT.equals(event.getType()) || !(event.getData() instanceof Context)) {
+            return;
+        }
+        final Context context = (Context) event.getData();
+        final Map<String, File> libraries = externalLibraries.get(context.getName());
+        if (libraries == null || libraries.isEmpty()) {
+            return;
+        }
+
+        WebResourceRoot resources = context.getResources();
+        if (resources == null) {
+            resources = new StandardRoot(context);
+            context.setResources(resources);
+        }
+        for (final Map.Entry<String, File> library : libraries.entrySet()) {
+            // mounted at its path in the archive, which may name it differently than its file
+            resources.addPreResources(
+                new LibraryResourceSet(resources, library.getKey(), library.getValue().getAbsolutePath()));
+        }
+    }
+
     private String getContextName(final String warFileName) {
         final ContextName contextName = new ContextName(warFileName, true);
         return contextName.getName();
@@ -0,0 +1,253 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.util.bcel.classfile.AnnotationEntry;
+import org.apache.tomcat.util.bcel.classfile.ClassFormatException;
+import org.apache.tomcat.util.bcel.classfile.ClassParser;
+import org.apache.tomcat.util.scan.JarFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the result of scanning a library JAR for the annotations {@link EmbeddedContextConfig} processes, i.e.
+ * {@code @WebServlet}, {@code @WebFilter} and {@code @WebListener}: the entries of the classes carrying one of them.
+ * <p>
+ * Results are keyed by the SHA-256 hash of the JAR content and kept in memory for the lifetime of the JVM, so an
+ * unchanged library is scanned once instead of once per deployment. If a directory is given, results are stored there
+ * as well and survive the JVM.
+ * </p>
+ */
+public class JarScanCache {
+
+    private static final Log log = LogFactory.getLog(JarScanCache.class);
+
+    private static final Set<String> WEB_ANNOTATION_TYPES = Set.of(
+        "Ljakarta/servlet/annotation/WebServlet;",
+        "Ljakarta/servlet/annotation/WebFilter;",
+        "Ljakarta/servlet/annotation/WebListener;");
+
+    /**
+     * Annotated class entries by JAR hash, shared by all caches of the JVM.
+     */
+    private static final Map<String, Set<String>> RESULTS = new ConcurrentHashMap<>();
+
+    /**
+     * JAR hashes by path, size and modification time, so unchanged JAR files are not hashed again.
+     */
+    private static final Map<String, String> FILE_HASHES = new ConcurrentHashMap<>();
+
+    private final File directory;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param directory the directory to persist scan results in, or null to keep them in memory only
+     */
+    public JarScanCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the entries of the classes in the given JAR annotated with {@code @WebServlet}, {@code @WebFilter} or
+     * {@code @WebListener}, scanning the JAR only if its content has not been scanned before.
+     *
+     * @param jarUrl the URL of the JAR, as used by {@link org.apache.catalina.startup.ContextConfig}
+     * @return the annotated class entries, in JAR order
+     * @throws IOException if the JAR cannot be read
+     */
+    public Set<String> getAnnotatedClasses(final URL jarUrl) throws IOException {
+        final String hash = hash(jarUrl);
+
+        Set<String> annotatedClasses = RESULTS.get(hash);
+        if (annotatedClasses == null) {
+            annotatedClasses = load(hash);
+            if (annotatedClasses == null) {
+                misses.incrementAndGet();
+                annotatedClasses = scan(jarUrl);
+                store(hash, annotatedClasses);
+            } else {
+                hits.incrementAndGet();
+            }
+            RESULTS.put(hash, annotatedClasses);
+        } else {
+            hits.incrementAndGet();
+        }
+        return annotatedClasses;
+    }
+
+    /**
+     * @return the number of JARs whose scan result was taken from the cache
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of JARs that had to be scanned
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private Set<String> scan(final URL jarUrl) throws IOException {
+        final Set<String> annotatedClasses = new LinkedHashSet<>();
+        try (Jar jar = JarFactory.newInstance(jarUrl)) {
+            jar.nextEntry();
+            String entryName = jar.getEntryName();
+            while (entryName != null) {
+                if (entryName.endsWith(".class")) {
+                    try (InputStream is = jar.getEntryInputStream()) {
+                        if (hasWebAnnotation(new ClassParser(is).parse().getAnnotationEntries())) {
+                            annotatedClasses.add(entryName);
+                        }
+                    } catch (final ClassFormatException e) {
+                        // Not processable by ContextConfig either
+                        log.debug("Unable to parse " + entryName + " in " + jarUrl, e);
+                    }
+                }
+                jar.nextEntry();
+                entryName = jar.getEntryName();
+            }
+        }
+        log.debug("Scanned " + jarUrl + ", " + annotatedClasses.size() + " annotated classes");
+        return Collections.unmodifiableSet(annotatedClasses);
+    }
+
+    private static boolean hasWebAnnotation(final AnnotationEntry[] annotationEntries) {
+        if (annotationEntries != null) {
+            for (final AnnotationEntry annotationEntry : annotationEntries) {
+                if (WEB_ANNOTATION_TYPES.contains(annotationEntry.getAnnotationType())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Set<String> load(final String hash) {
+        if (directory == null) {
+            return null;
+        }
+        final File file = new File(directory, hash);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            return Collections.unmodifiableSet(new LinkedHashSet<>(lines));
+        } catch (final IOException e) {
+            log.warn("Unable to read JAR scan result " + file, e);
+            return null;
+        }
+    }
+
+    private void store(final String hash, final Set<String> annotatedClasses) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory.toPath());
+            // Written to a temporary file first, so concurrent builds sharing the directory never read partial results
+            final File tempFile = File.createTempFile(hash, ".tmp", directory);
+            Files.write(tempFile.toPath(), annotatedClasses, StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), new File(directory, hash).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            log.warn("Unable to store JAR scan result in " + directory, e);
+        }
+    }
+
+    private static String hash(final URL jarUrl) throws IOException {
+        final File file = toFile(jarUrl);
+        if (file == null) {
+            try (InputStream in = jarUrl.openStream()) {
+                return digest(in);
+            }
+        }
+
+        final String fileKey = file.getAbsolutePath() + '|' + file.length() + '|' + file.lastModified();
+        String hash = FILE_HASHES.get(fileKey);
+        if (hash == null) {
+            try (InputStream in = new FileInputStream(file)) {
+                hash = digest(in);
+            }
+            FILE_HASHES.put(fileKey, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * The JAR file of a <code>file:</code> URL or of a <code>jar:</code> URL pointing to the root of a JAR file, null
+     * for all other URLs, e.g. JARs nested in a WAR.
+     */
+    private static File toFile(final URL jarUrl) {
+        try {
+            if ("file".equals(jarUrl.getProtocol())) {
+                return new File(jarUrl.toURI());
+            }
+            final String spec = jarUrl.toString();
+            if (spec.startsWith("jar:file:") && spec.endsWith("!/") && spec.indexOf("!/") == spec.length() - 2) {
+                return new File(new URL(spec.substring(4, spec.length() - 2)).toURI());
+            }
+        } catch (final URISyntaxException | IOException | IllegalArgumentException e) {
+            log.debug("Unable to resolve " + jarUrl + " to a file", e);
+        }
+        return null;
+    }
+
+    private static String digest(final InputStream in) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
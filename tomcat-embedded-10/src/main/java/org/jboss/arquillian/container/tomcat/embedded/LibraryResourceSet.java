@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.webresources.FileResourceSet;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A library JAR file mounted at its path in the web application, e.g. "/WEB-INF/lib/foo.jar".
+ * <p>
+ * {@link FileResourceSet} lists a mounted file in its directory only under the name of the file itself, while
+ * ShrinkWrap lets a library be added under another name. The library is listed under the name of its mount instead, so
+ * the class path and the JAR scanner find it either way.
+ * </p>
+ */
+class LibraryResourceSet extends FileResourceSet {
+
+    /**
+     * @param root the resources of the web application
+     * @param webAppMount the path of the library in the web application
+     * @param base the absolute path of the library file
+     */
+    LibraryResourceSet(final WebResourceRoot root, final String webAppMount, final String base) {
+        super(root, webAppMount, base, "/");
+    }
+
+    @Override
+    public String[] list(final String path) {
+        final String name = getLibraryName(path);
+        return name != null ? new String[] {name} : super.list(path);
+    }
+
+    @Override
+    public Set<String> listWebAppPaths(final String path) {
+        final String name = getLibraryName(path);
+        return name != null ? Collections.singleton(getWebAppMount()) : super.listWebAppPaths(path);
+    }
+
+    /**
+     * @return the name of the library if the given path is the directory it is mounted in, null otherwise
+     */
+    private String getLibraryName(final String path) {
+        final String directory = path.endsWith("/") ? path : path + "/";
+        final String webAppMount = getWebAppMount();
+        if (webAppMount.startsWith(directory) && webAppMount.indexOf('/', directory.length()) == -1) {
+            return webAppMount.substring(directory.length());
+        }
+        return null;
+    }
+}
@@ -16,7 +16,11 @@
  */
 package org.jboss.arquillian.container.tomcat.embedded;
 
+import org.apache.catalina.Context;
 import org.apache.catalina.Host;
+import org.apache.catalina.Manager;
+import org.apache.catalina.Session;
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.core.StandardHost;
 import org.apache.catalina.startup.CatalinaProperties;
@@ -34,10 +38,30 @@ import org.jboss.arquillian.container.spi.context.annotation.DeploymentScoped;
 import org.jboss.arquillian.core.api.InstanceProducer;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.exporter.ExplodedExporter;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * <p>
@@ -62,6 +86,32 @@ import java.io.IOException;
  */
 public class Tomcat10EmbeddedContainer implements DeployableContainer<TomcatEmbeddedConfiguration> {
 
+    private static final Logger log = Logger.getLogger(Tomcat10EmbeddedContainer.class.getName());
+
+    private static final String WEB_INF_LIB = "/WEB-INF/lib";
+
+    /**
+     * The first Java version with virtual threads.
+     */
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    /**
+     * The first Java version with Unix domain socket channels.
+     */
+    private static final int UNIX_DOMAIN_SOCKETS_JAVA_VERSION = 16;
+
+    /**
+     * Time stop() waits for exploded deployments that are still being deleted in the background.
+     */
+    private static final long DELETION_TIMEOUT_SECONDS = 30;
+
+    /**
+     * The container provided ServletContainerInitializers skipped by lean contexts: WebSocket and Jasper, the latter
+     * of which would otherwise scan all JARs for TLDs.
+     */
+    static final String LEAN_CONTAINER_SCI_FILTER =
+        "org\\.apache\\.tomcat\\.websocket\\.server\\.WsSci|org\\.apache\\.jasper\\.servlet\\.JasperInitializer";
+
     private final SystemPropertiesUtil systemPropertiesUtil = new SystemPropertiesUtil();
 
     /**
@@ -82,6 +132,18 @@ public class Tomcat10EmbeddedContainer implements DeployableContainer<TomcatEmbe
 
     private boolean wasStarted;
 
+    private ExecutorService deletionExecutor;
+
+    /**
+     * Keeps the contexts of undeployed archives for reuse, null if disabled.
+     */
+    private ContextReuseRegistry contextReuseRegistry;
+
+    /**
+     * The reuse registry entries of the deployed archives by archive name.
+     */
+    private final Map<String, ContextReuseRegistry.Entry> deployedContexts = new HashMap<>();
+
     @Inject
     @DeploymentScoped
     private InstanceProducer<StandardContext> standardContextProducer;
@@ -131,16 +193,43 @@ public class Tomcat10EmbeddedContainer implements DeployableContainer<TomcatEmbe
     @Override
     public ProtocolMetaData deploy(final Archive<?> archive) throws DeploymentException {
         try {
-            // Ensure we don't create a corrupted archive by exporting to a file that already exists.
-            deleteWar(archive);
+            final ContextReuseRegistry.Entry entry =
+                contextReuseRegistry != null ? ContextReuseRegistry.describe(archive) : null;
+            final ContextName contextName = getContextName(archive);
 
-            final File archiveFile = new File(appBase, archive.getName());
-            archive.as(ZipExporter.class).exportTo(archiveFile, true);
+            if (entry == null || !reuseContext(archive, entry)) {
+                if (configuration.isInMemoryDeployment()) {
+                    final File libraryDirectory = new File(tomcat.getServer().getCatalinaBase(),
+                        "temp" + File.separator + "arquillian-lib" + File.separator + contextName.getBaseName());
+                    embeddedHostConfig.deployArchive(archive, libraryDirectory);
+                } else {
+                    final Map<String, File> externalLibraries = configuration.isSkinnyDeployment()
+                        ? findExternalLibraries(archive) : Collections.<String, File>emptyMap();
+                    final Archive<?> exportedArchive = stripLibraries(archive, externalLibraries.keySet());
 
-            embeddedHostConfig.deployWAR(archive.getName());
+                    if (configuration.isUnpackArchive()) {
+                        // Ensure we don't mix in files of a previous deployment of the same name.
+                        deleteExploded(archive);
+
+                        exportedArchive.as(ExplodedExporter.class).exportExploded(appBase, contextName.getBaseName());
+
+                        embeddedHostConfig.deployDirectory(contextName.getBaseName(), externalLibraries);
+                    } else {
+                        // Ensure we don't create a corrupted archive by exporting to a file that already exists.
+                        deleteWar(archive.getName());
+
+                        final File archiveFile = new File(appBase, archive.getName());
+                        exportedArchive.as(ZipExporter.class).exportTo(archiveFile, true);
+
+                        embeddedHostConfig.deployWAR(archive.getName(), externalLibraries);
+                    }
+                }
+            }
 
-            final ContextName contextName = getContextName(archive);
             final StandardContext standardContext = (StandardContext) host.findChild(contextName.getName());
+            if (standardContext == null) {
+                throw new DeploymentException("Failed to deploy " + archive.getName());
+            }
             standardContextProducer.set(standardContext);
 
             // Use tomcat values instead of configuration ones to support automatic/random port selection
@@ -151,23 +240,156 @@ public class Tomcat10EmbeddedContainer implements DeployableContainer<TomcatEmbe
                 httpContext.add(new Servlet(standardContext.findServletMapping(mapping), contextName.getPath()));
             }
 
+            if (entry != null) {
+                deployedContexts.put(archive.getName(), entry);
+            }
             return new ProtocolMetaData().addContext(httpContext);
+        } catch (final DeploymentException e) {
+            throw e;
         } catch (final Exception e) {
             throw new DeploymentException("Failed to deploy " + archive.getName(), e);
         }
     }
 
+    /**
+     * Resets and keeps the idle context of an identical archive, if there is one. Otherwise an idle context occupying
+     * the name of the archive is redeployed incrementally if enabled, or undeployed.
+     *
+     * @return true if the context was reused, false if the archive has to be deployed
+     */
+    private boolean reuseContext(final Archive<?> archive, final ContextReuseRegistry.Entry entry)
+        throws IOException {
+        final ContextReuseRegistry.Entry idleContext = contextReuseRegistry.take(entry.getFingerprint());
+        if (idleContext != null) {
+            final Context context = (Context) host.findChild(getContextName(archive).getName());
+            if (context != null && context.getState().isAvailable()) {
+                resetContext(context);
+                log.fine("Reusing context of " + archive.getName());
+                return true;
+            }
+            undeployArchive(idleContext.getArchiveName());
+        } else {
+            final ContextReuseRegistry.Entry occupyingContext =
+                contextReuseRegistry.takeByArchiveName(archive.getName());
+            if (occupyingContext != null) {
+                if (configuration.isIncrementalRedeploy() && redeployIncrementally(archive, occupyingContext, entry)) {
+                    return true;
+                }
+                undeployArchive(occupyingContext.getArchiveName());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Brings the exploded directory of the context of an earlier version of the archive up to date by writing only the
+     * entries that changed, and reloads the context with a new class loader.
+     *
+     * @return true if the context was redeployed, false if the archive has to be deployed from scratch
+     */
+    private boolean redeployIncrementally(final Archive<?> archive, final ContextReuseRegistry.Entry deployed,
+        final ContextReuseRegistry.Entry entry) throws IOException {
+        final StandardContext context = (StandardContext) host.findChild(getContextName(archive).getName());
+        if (context == null || !context.getState().isAvailable()) {
+            return false;
+        }
+
+        final Map<String, String> deployedDigests = deployed.getContentDigests();
+        final Set<String> changedPaths = new TreeSet<>();
+        for (final Map.Entry<String, String> contentDigest : entry.getContentDigests().entrySet()) {
+            if (!contentDigest.getValue().equals(deployedDigests.get(contentDigest.getKey()))) {
+                changedPaths.add(contentDigest.getKey());
+            }
+        }
+        final Set<String> removedPaths = new TreeSet<>(deployedDigests.keySet());
+        removedPaths.removeAll(entry.getContentDigests().keySet());
+
+        if (configuration.isSkinnyDeployment()) {
+            // Libraries are mounted rather than exported, so these have to be deployed from scratch
+            for (final String path : changedPaths) {
+                if (path.startsWith(WEB_INF_LIB + "/")) {
+                    return false;
+                }
+            }
+            for (final String path : removedPaths) {
+                if (path.startsWith(WEB_INF_LIB + "/")) {
+                    return false;
+                }
+            }
+        }
+
+        final File explodedDir = getExplodedDir(archive.getName());
+        for (final String path : removedPaths) {
+            final File file = new File(explodedDir, path);
+            if (file.isDirectory()) {
+                ExpandWar.deleteDir(file);
+            } else if (file.exists() && !file.delete()) {
+                throw new IOException("Unable to delete " + file);
+            }
+        }
+        for (final String path : changedPaths) {
+            final File file = new File(explodedDir, path);
+            final Asset asset = archive.get(path).getAsset();
+            if (asset == null) {
+                if (!file.isDirectory() && !file.mkdirs()) {
+                    throw new IOException("Unable to create " + file);
+                }
+            } else {
+                if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+                    throw new IOException("Unable to create " + file.getParentFile());
+                }
+                try (InputStream in = asset.openStream()) {
+                    Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        // Sessions would otherwise be persisted across the reload
+        resetContext(context);
+        context.reload();
+        log.fine("Redeployed " + archive.getName() + " incrementally, " + changedPaths.size() + " changed and "
+            + removedPaths.size() + " removed entries");
+        return context.getState().isAvailable();
+    }
+
+    /**
+     * Resets the state a test can leave behind in a reused context, i.e. its sessions.
+     */
+    private void resetContext(final Context context) {
+        final Manager manager = context.getManager();
+        if (manager != null) {
+            for (final Session session : manager.findSessions()) {
+                session.expire();
+            }
+        }
+    }
+
     @Override
     public void undeploy(final Archive<?> archive) throws DeploymentException {
         try {
-            embeddedHostConfig.undeployWAR(archive.getName());
-
-            deleteWar(archive);
+            final ContextReuseRegistry.Entry entry = deployedContexts.remove(archive.getName());
+            if (contextReuseRegistry != null && entry != null) {
+                for (final ContextReuseRegistry.Entry evicted : contextReuseRegistry.park(entry)) {
+                    undeployArchive(evicted.getArchiveName());
+                }
+            } else {
+                undeployArchive(archive.getName());
+            }
         } catch (final Exception e) {
             throw new DeploymentException("Failed to undeploy " + archive.getName(), e);
         }
     }
 
+    private void undeployArchive(final String archiveName) {
+        embeddedHostConfig.undeployWAR(archiveName);
+
+        if (configuration.isUnpackArchive()) {
+            deleteExplodedInBackground(archiveName);
+        } else {
+            deleteWar(archiveName);
+        }
+    }
+
     protected void startTomcatEmbedded() throws LifecycleException, org.apache.catalina.LifecycleException {
         /*
          * Derived from setUp() in
@@ -191,7 +413,10 @@ public class Tomcat10EmbeddedContainer implements DeployableContainer<TomcatEmbe
         tomcat.setHostname(hostname);
         tomcat.setPort(configuration.getBindHttpPort());
         tomcat.setBaseDir(tempDir.getAbsolutePath());
-        tomcat.getConnector();
+        configureConnector(tomcat.getConnector());
+        if (configuration.getUnixDomainSocketPath() != null) {
+            addUnixDomainSocketConnector();
+        }
 
         // Enable JNDI - it is disabled by default.
         tomcat.enableNaming();
@@ -212,8 +437,29 @@ public class Tomcat10EmbeddedContainer implements DeployableContainer<TomcatEmbe
 
         embeddedHostConfig = new EmbeddedHostConfig();
         embeddedHostConfig.setUnpackWARs(configuration.isUnpackArchive());
+        if (configuration.isJarScanCache()) {
+            embeddedHostConfig.setJarScanCache(new JarScanCache(configuration.isPersistentJarScanCache()
+                ? new File(tempDir, "arquillian-jar-scan-cache") : null));
+        }
+        if (configuration.isReuseContexts() || configuration.isIncrementalRedeploy()) {
+            contextReuseRegistry = new ContextReuseRegistry(configuration.getMaxReusableContexts(),
+                configuration.getMaxReusableContextsSizeInMegabytes() * 1024L * 1024L);
+        }
+        embeddedHostConfig.setLeanContext(configuration.isLeanContext());
+        if (configuration.getContainerSciFilter() != null) {
+            embeddedHostConfig.setContainerSciFilter(configuration.getContainerSciFilter());
+        } else if (configuration.isLeanContext()) {
+            embeddedHostConfig.setContainerSciFilter(LEAN_CONTAINER_SCI_FILTER);
+        }
+
+        deletionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "arquillian-tomcat-embedded-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         host.addLifecycleListener(embeddedHostConfig);
+        host.addContainerListener(embeddedHostConfig);
 
         tomcat.getEngine().addChild(host);
 
@@ -221,26 +467,166 @@ public class Tomcat10EmbeddedContainer implements DeployableContainer<TomcatEmbe
         wasStarted = true;
     }
 
+    /**
+     * Adds an NIO connector bound to the configured Unix domain socket, next to the TCP connector.
+     */
+    private void addUnixDomainSocketConnector() throws LifecycleException {
+        if (Runtime.version().feature() < UNIX_DOMAIN_SOCKETS_JAVA_VERSION) {
+            log.warning("Java " + Runtime.version() + " has no Unix domain socket channels, using TCP only");
+            return;
+        }
+
+        final Path socket = Paths.get(
+            systemPropertiesUtil.substituteEnvironmentVariable(configuration.getUnixDomainSocketPath()))
+            .toAbsolutePath();
+        try {
+            // A socket left behind by a JVM that was killed would make binding fail
+            if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+                if (!Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther()) {
+                    throw new LifecycleException("Unix domain socket path " + socket + " exists and is no socket");
+                }
+                Files.delete(socket);
+            }
+        } catch (final IOException e) {
+            throw new LifecycleException("Unable to delete stale Unix domain socket " + socket, e);
+        }
+
+        final Connector connector = new Connector("org.apache.coyote.http11.Http11NioProtocol");
+        if (!connector.setProperty("unixDomainSocketPath", socket.toString())) {
+            throw new LifecycleException("Connector does not support unixDomainSocketPath");
+        }
+        configureConnector(connector);
+        tomcat.getService().addConnector(connector);
+    }
+
+    private void configureConnector(final Connector connector) {
+        if (configuration.isVirtualThreads()) {
+            if (Runtime.version().feature() < VIRTUAL_THREADS_JAVA_VERSION) {
+                log.warning("Java " + Runtime.version() + " has no virtual threads, using platform threads");
+            } else {
+                setConnectorProperty(connector, "useVirtualThreads", "true");
+            }
+        }
+        if (configuration.getMaxThreads() > 0) {
+            setConnectorProperty(connector, "maxThreads", String.valueOf(configuration.getMaxThreads()));
+        }
+        if (configuration.getAcceptCount() > 0) {
+            setConnectorProperty(connector, "acceptCount", String.valueOf(configuration.getAcceptCount()));
+        }
+    }
+
+    private void setConnectorProperty(final Connector connector, final String name, final String value) {
+        if (!connector.setProperty(name, value)) {
+            log.warning("Connector does not support " + name + ", ignoring it");
+        }
+    }
+
     protected void stopTomcatEmbedded() throws org.apache.catalina.LifecycleException {
+        if (contextReuseRegistry != null) {
+            for (final ContextReuseRegistry.Entry entry : contextReuseRegistry.clear()) {
+                undeployArchive(entry.getArchiveName());
+            }
+            log.info("Context reuse: " + contextReuseRegistry.getHits() + " hits, " + contextReuseRegistry.getMisses()
+                + " misses, " + contextReuseRegistry.getEvictions() + " evictions");
+        }
+        deployedContexts.clear();
+
         tomcat.stop();
         tomcat.destroy();
+
+        final JarScanCache jarScanCache = embeddedHostConfig.getJarScanCache();
+        if (jarScanCache != null) {
+            log.info("JAR scan cache: " + jarScanCache.getHits() + " hits, " + jarScanCache.getMisses() + " misses");
+        }
+
+        deletionExecutor.shutdown();
+        try {
+            if (!deletionExecutor.awaitTermination(DELETION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warning("Exploded deployments were not deleted within " + DELETION_TIMEOUT_SECONDS + " s");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
-     * Make sure the WAR file and unpacked directory (if applicable) are not left behind.
+     * Make sure the exploded directory of a previous deployment is not left behind.
      *
      * @see {@link TomcatEmbeddedConfiguration#isUnpackArchive()}
      */
-    private void deleteWar(final Archive<?> archive) {
-        if (configuration.isUnpackArchive()) {
-            final ContextName contextName = getContextName(archive);
-            final File unpackDir = new File(host.getAppBase(), contextName.getBaseName());
-            if (unpackDir.exists()) {
-                ExpandWar.deleteDir(unpackDir);
+    private void deleteExploded(final Archive<?> archive) {
+        final File explodedDir = getExplodedDir(archive.getName());
+        if (explodedDir.exists()) {
+            ExpandWar.deleteDir(explodedDir);
+        }
+    }
+
+    /**
+     * Moves the exploded directory out of the app base, so the name is free for the next deployment right away, and
+     * deletes it in the background. Falls back to deleting it in place if it cannot be moved.
+     */
+    private void deleteExplodedInBackground(final String archiveName) {
+        final File explodedDir = getExplodedDir(archiveName);
+        if (!explodedDir.exists()) {
+            return;
+        }
+
+        final File trashDir = new File(tomcat.getServer().getCatalinaBase(), "temp");
+        final File movedDir = new File(trashDir, explodedDir.getName() + "-" + System.nanoTime());
+        if ((trashDir.isDirectory() || trashDir.mkdirs()) && explodedDir.renameTo(movedDir)) {
+            deletionExecutor.execute(() -> ExpandWar.deleteDir(movedDir));
+        } else {
+            ExpandWar.deleteDir(explodedDir);
+        }
+    }
+
+    private File getExplodedDir(final String archiveName) {
+        return new File(host.getAppBase(), new ContextName(archiveName, true).getBaseName());
+    }
+
+    /**
+     * Finds the library JARs of the archive that are backed by a file, e.g. JARs resolved from the local Maven
+     * repository or taken from the class path, so they can be mounted instead of being exported with the archive.
+     *
+     * @return the library files by their path in the archive
+     */
+    private Map<String, File> findExternalLibraries(final Archive<?> archive) {
+        final Map<String, File> libraries = new HashMap<>();
+        final Node libDir = archive.get(WEB_INF_LIB);
+        if (libDir != null) {
+            for (final Node library : libDir.getChildren()) {
+                final String path = library.getPath().get();
+                if (path.endsWith(".jar") && library.getAsset() instanceof FileAsset) {
+                    final File source = ((FileAsset) library.getAsset()).getSource();
+                    if (source.isFile()) {
+                        libraries.put(path, source);
+                    }
+                }
             }
         }
+        return libraries;
+    }
 
-        final File warFile = new File(host.getAppBase(), archive.getName());
+    /**
+     * A copy of the archive without the given paths, leaving the archive itself untouched. The copy shares the assets
+     * of the archive, so no content is copied.
+     */
+    private Archive<?> stripLibraries(final Archive<?> archive, final Set<String> paths) {
+        if (paths.isEmpty()) {
+            return archive;
+        }
+        final Archive<?> strippedArchive = archive.shallowCopy();
+        for (final String path : paths) {
+            strippedArchive.delete(path);
+        }
+        return strippedArchive;
+    }
+
+    /**
+     * Make sure the WAR file is not left behind.
+     */
+    private void deleteWar(final String archiveName) {
+        final File warFile = new File(host.getAppBase(), archiveName);
         if (warFile.exists()) {
             warFile.delete();
         }
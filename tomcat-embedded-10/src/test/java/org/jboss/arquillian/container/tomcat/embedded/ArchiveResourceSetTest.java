@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.apache.catalina.WebResource;
+import org.jboss.arquillian.container.tomcat.test.TestServlet;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ArchiveResourceSetTest {
+
+    private ArchiveResourceSet resourceSet;
+
+    @Before
+    public void setUp() {
+
+        final WebArchive archive = ShrinkWrap.create(WebArchive.class, "test.war")
+            .addClass(TestServlet.class)
+            .addAsWebResource(new StringAsset("<html/>"), "index.html")
+            .setWebXML("web-5.0.xml");
+
+        resourceSet = new ArchiveResourceSet(null, archive, new File("target", "archive-resource-set-lib"));
+    }
+
+    @Test
+    public void testGetFileResource() throws Exception {
+
+        final WebResource resource = resourceSet.getResource("/index.html");
+
+        assertTrue(resource.exists());
+        assertTrue(resource.isFile());
+        assertEquals("index.html", resource.getName());
+        assertEquals(7, resource.getContentLength());
+        assertEquals("<html/>", new String(resource.getContent(), StandardCharsets.UTF_8));
+        assertEquals(ArchiveResourceSet.PROTOCOL, resource.getURL().getProtocol());
+    }
+
+    @Test
+    public void testGetDirectoryResource() {
+
+        final WebResource resource = resourceSet.getResource("/WEB-INF/classes");
+
+        assertTrue(resource.exists());
+        assertTrue(resource.isDirectory());
+        assertEquals("/WEB-INF/classes/", resource.getWebappPath());
+        assertTrue(resource.getURL().getPath().endsWith("/WEB-INF/classes/"));
+    }
+
+    @Test
+    public void testGetMissingResource() {
+
+        assertFalse(resourceSet.getResource("/missing.html").exists());
+    }
+
+    @Test
+    public void testClassesShareCodeBase() {
+
+        final String classPath = "/WEB-INF/classes/" + TestServlet.class.getName().replace('.', '/') + ".class";
+
+        assertEquals(resourceSet.getResource("/WEB-INF/classes/").getURL(),
+            resourceSet.getResource(classPath).getCodeBase());
+    }
+
+    @Test
+    public void testList() {
+
+        assertArrayEquals(new String[]{"classes", "web.xml"}, resourceSet.list("/WEB-INF"));
+
+        final Set<String> webAppPaths = resourceSet.listWebAppPaths("/WEB-INF/");
+        assertEquals(Set.of("/WEB-INF/web.xml", "/WEB-INF/classes/"), webAppPaths);
+    }
+
+    @Test
+    public void testReadOnly() {
+
+        assertTrue(resourceSet.isReadOnly());
+        assertFalse(resourceSet.mkdir("/new"));
+        assertFalse(resourceSet.getResource("/index.html").delete());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+public class ContextReuseRegistryTest {
+
+    @Test
+    public void testTakeParkedContext() {
+
+        final ContextReuseRegistry registry = new ContextReuseRegistry(2, 1000);
+        final ContextReuseRegistry.Entry entry = new ContextReuseRegistry.Entry("a", "a.war", 10);
+
+        assertNull(registry.take("a"));
+        assertTrue(registry.park(entry).isEmpty());
+        assertSame(entry, registry.take("a"));
+        assertNull(registry.take("a"));
+
+        assertEquals(1, registry.getHits());
+        assertEquals(2, registry.getMisses());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedBeyondMaxContexts() {
+
+        final ContextReuseRegistry registry = new ContextReuseRegistry(2, 1000);
+        final ContextReuseRegistry.Entry a = new ContextReuseRegistry.Entry("a", "a.war", 10);
+        registry.park(a);
+        registry.park(new ContextReuseRegistry.Entry("b", "b.war", 10));
+
+        final List<ContextReuseRegistry.Entry> evicted =
+            registry.park(new ContextReuseRegistry.Entry("c", "c.war", 10));
+
+        assertEquals(1, evicted.size());
+        assertSame(a, evicted.get(0));
+        assertEquals(1, registry.getEvictions());
+        assertNull(registry.take("a"));
+    }
+
+    @Test
+    public void testEvictBeyondMaxSize() {
+
+        final ContextReuseRegistry registry = new ContextReuseRegistry(10, 100);
+        registry.park(new ContextReuseRegistry.Entry("a", "a.war", 60));
+
+        final List<ContextReuseRegistry.Entry> evicted =
+            registry.park(new ContextReuseRegistry.Entry("b", "b.war", 60));
+
+        assertEquals(1, evicted.size());
+        assertEquals("a", evicted.get(0).getFingerprint());
+    }
+
+    @Test
+    public void testTakeByArchiveName() {
+
+        final ContextReuseRegistry registry = new ContextReuseRegistry(2, 1000);
+        final ContextReuseRegistry.Entry entry = new ContextReuseRegistry.Entry("a", "test.war", 10);
+        registry.park(entry);
+
+        assertNull(registry.takeByArchiveName("other.war"));
+        assertSame(entry, registry.takeByArchiveName("test.war"));
+        assertTrue(registry.clear().isEmpty());
+    }
+
+    @Test
+    public void testDescribeArchive() throws Exception {
+
+        final ContextReuseRegistry.Entry entry = ContextReuseRegistry.describe(createArchive("test.war", "<html/>"));
+
+        assertEquals(entry.getFingerprint(),
+            ContextReuseRegistry.describe(createArchive("test.war", "<html/>")).getFingerprint());
+        assertNotEquals(entry.getFingerprint(),
+            ContextReuseRegistry.describe(createArchive("test.war", "<html></html>")).getFingerprint());
+        assertNotEquals(entry.getFingerprint(),
+            ContextReuseRegistry.describe(createArchive("other.war", "<html/>")).getFingerprint());
+        assertEquals("test.war", entry.getArchiveName());
+        assertEquals(7, entry.getSize());
+        assertTrue(entry.getContentDigests().containsKey("/index.html"));
+        assertNotEquals(entry.getContentDigests().get("/index.html"),
+            ContextReuseRegistry.describe(createArchive("test.war", "<html></html>")).getContentDigests()
+                .get("/index.html"));
+    }
+
+    private static WebArchive createArchive(final String name, final String index) {
+
+        return ShrinkWrap.create(WebArchive.class, name).addAsWebResource(new StringAsset(index), "index.html");
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.embedded;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.apache.catalina.webresources.StandardRoot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LibraryResourceSetTest {
+
+    private File library;
+
+    @Before
+    public void createLibrary() throws Exception {
+
+        library = Files.createTempFile("library-1.0", ".jar").toFile();
+    }
+
+    @After
+    public void deleteLibrary() {
+
+        library.delete();
+    }
+
+    @Test
+    public void testListRenamedLibrary() {
+
+        final LibraryResourceSet resourceSet =
+            new LibraryResourceSet(new StandardRoot(), "/WEB-INF/lib/renamed.jar", library.getAbsolutePath());
+
+        assertArrayEquals(new String[] {"renamed.jar"}, resourceSet.list("/WEB-INF/lib"));
+        assertArrayEquals(new String[] {"renamed.jar"}, resourceSet.list("/WEB-INF/lib/"));
+        assertEquals(Set.of("/WEB-INF/lib/renamed.jar"), resourceSet.listWebAppPaths("/WEB-INF/lib/"));
+    }
+
+    @Test
+    public void testListParentOfLibraryDirectory() {
+
+        final LibraryResourceSet resourceSet =
+            new LibraryResourceSet(new StandardRoot(), "/WEB-INF/lib/renamed.jar", library.getAbsolutePath());
+
+        assertArrayEquals(new String[] {"lib"}, resourceSet.list("/WEB-INF"));
+    }
+}
@@ -19,6 +19,9 @@ package org.jboss.arquillian.container.tomcat.embedded;
 import org.jboss.arquillian.container.spi.ConfigurationException;
 import org.jboss.arquillian.container.spi.client.container.ContainerConfiguration;
 
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
 /**
  * Arquillian Tomcat Container Configuration
  *
@@ -41,9 +44,66 @@ public class TomcatEmbeddedConfiguration implements ContainerConfiguration {
 
     private boolean unpackArchive = false;
 
+    private boolean inMemoryDeployment = false;
+
+    private boolean skinnyDeployment = false;
+
+    private boolean jarScanCache = false;
+
+    private boolean persistentJarScanCache = false;
+
+    private boolean leanContext = false;
+
+    private String containerSciFilter;
+
+    private boolean reuseContexts = false;
+
+    private int maxReusableContexts = 4;
+
+    private int maxReusableContextsSizeInMegabytes = 256;
+
+    private boolean incrementalRedeploy = false;
+
+    private boolean virtualThreads = false;
+
+    private int maxThreads = 0;
+
+    private int acceptCount = 0;
+
+    private String unixDomainSocketPath;
+
     @Override
     public void validate() throws ConfigurationException {
 
+        if (inMemoryDeployment && unpackArchive) {
+            throw new ConfigurationException("inMemoryDeployment and unpackArchive cannot be enabled together");
+        }
+        if (persistentJarScanCache && !jarScanCache) {
+            throw new ConfigurationException("persistentJarScanCache requires jarScanCache to be enabled");
+        }
+        if (maxThreads < 0) {
+            throw new ConfigurationException("maxThreads must not be negative");
+        }
+        if (acceptCount < 0) {
+            throw new ConfigurationException("acceptCount must not be negative");
+        }
+        if (incrementalRedeploy && !unpackArchive) {
+            throw new ConfigurationException("incrementalRedeploy requires unpackArchive to be enabled");
+        }
+        if ((reuseContexts || incrementalRedeploy) && maxReusableContexts <= 0) {
+            throw new ConfigurationException("maxReusableContexts must be greater than 0");
+        }
+        if ((reuseContexts || incrementalRedeploy) && maxReusableContextsSizeInMegabytes <= 0) {
+            throw new ConfigurationException("maxReusableContextsSizeInMegabytes must be greater than 0");
+        }
+        if (containerSciFilter != null) {
+            try {
+                Pattern.compile(containerSciFilter);
+            } catch (final PatternSyntaxException e) {
+                throw new ConfigurationException("containerSciFilter is not a valid regular expression: "
+                    + e.getMessage());
+            }
+        }
     }
 
     public String getBindAddress() {
@@ -136,9 +196,8 @@ public class TomcatEmbeddedConfiguration implements ContainerConfiguration {
     }
 
     /**
-     * Sets the WAR to be unpacked into the java.io.tmpdir when deployed. Unpacking is required if you are using Weld to
-     * provide
-     * CDI support in a servlet environment.
+     * Sets the deployment to be exported as an exploded directory into the appBase instead of as a WAR file. Unpacking
+     * is required if you are using Weld to provide CDI support in a servlet environment.
      *
      * @param a
      *     switch indicating whether the WAR should be unpacked
@@ -147,4 +206,292 @@ public class TomcatEmbeddedConfiguration implements ContainerConfiguration {
 
         this.unpackArchive = unpack;
     }
+
+    /**
+     * @return a switch indicating whether deployments are served from memory
+     */
+    public boolean isInMemoryDeployment() {
+
+        return inMemoryDeployment;
+    }
+
+    /**
+     * Sets deployments to be served straight from the ShrinkWrap archive in memory, instead of being exported to a WAR
+     * file in the appBase. Only JARs in WEB-INF/lib that were not added from a file are written to disk. As there is
+     * no WAR file, a
+     * META-INF/context.xml of the deployment is not processed and ServletContext.getRealPath() returns null.
+     *
+     * @param inMemoryDeployment
+     *     switch indicating whether deployments are served from memory
+     */
+    public void setInMemoryDeployment(final boolean inMemoryDeployment) {
+
+        this.inMemoryDeployment = inMemoryDeployment;
+    }
+
+    /**
+     * @return a switch indicating whether library JARs backed by a file are mounted instead of exported
+     */
+    public boolean isSkinnyDeployment() {
+
+        return skinnyDeployment;
+    }
+
+    /**
+     * Sets library JARs in WEB-INF/lib that were added from a file, e.g. resolved from the local Maven repository, to
+     * be left out of the exported deployment and to be mounted from their original location instead. JARs created
+     * with ShrinkWrap are still exported with the deployment.
+     *
+     * @param skinnyDeployment
+     *     switch indicating whether library JARs backed by a file are mounted instead of exported
+     */
+    public void setSkinnyDeployment(final boolean skinnyDeployment) {
+
+        this.skinnyDeployment = skinnyDeployment;
+    }
+
+    /**
+     * @return a switch indicating whether annotation scan results of library JARs are cached
+     */
+    public boolean isJarScanCache() {
+
+        return jarScanCache;
+    }
+
+    /**
+     * Sets the results of scanning library JARs for @WebServlet, @WebFilter and @WebListener to be cached by JAR
+     * content for the lifetime of the JVM, so an unchanged library is scanned only once. JARs are still scanned as
+     * usual if a ServletContainerInitializer declares @HandlesTypes.
+     *
+     * @param jarScanCache
+     *     switch indicating whether annotation scan results of library JARs are cached
+     */
+    public void setJarScanCache(final boolean jarScanCache) {
+
+        this.jarScanCache = jarScanCache;
+    }
+
+    /**
+     * @return a switch indicating whether cached JAR scan results are persisted under the Tomcat home
+     */
+    public boolean isPersistentJarScanCache() {
+
+        return persistentJarScanCache;
+    }
+
+    /**
+     * Sets cached JAR scan results to be persisted under the Tomcat home as well, so they are reused by later builds.
+     * Only useful together with a fixed tomcatHome.
+     *
+     * @param persistentJarScanCache
+     *     switch indicating whether cached JAR scan results are persisted under the Tomcat home
+     */
+    public void setPersistentJarScanCache(final boolean persistentJarScanCache) {
+
+        this.persistentJarScanCache = persistentJarScanCache;
+    }
+
+    /**
+     * @return a switch indicating whether contexts are started without JSP support
+     */
+    public boolean isLeanContext() {
+
+        return leanContext;
+    }
+
+    /**
+     * Sets contexts to be started without JSP support: no JSP servlet is registered, JARs are not scanned for TLDs and,
+     * unless a containerSciFilter is given, the WebSocket and Jasper ServletContainerInitializers are skipped.
+     *
+     * @param leanContext
+     *     switch indicating whether contexts are started without JSP support
+     */
+    public void setLeanContext(final boolean leanContext) {
+
+        this.leanContext = leanContext;
+    }
+
+    /**
+     * @return the regular expression matching the class names of container provided ServletContainerInitializers to
+     * skip, or null
+     */
+    public String getContainerSciFilter() {
+
+        return containerSciFilter;
+    }
+
+    /**
+     * Sets the regular expression matching the class names of container provided ServletContainerInitializers not to
+     * run, e.g. <code>org\.apache\.tomcat\.websocket\.server\.WsSci</code>. Initializers of the deployment are
+     * not affected.
+     *
+     * @param containerSciFilter
+     *     regular expression matching the class names of container provided ServletContainerInitializers to skip
+     */
+    public void setContainerSciFilter(final String containerSciFilter) {
+
+        this.containerSciFilter = containerSciFilter;
+    }
+
+    /**
+     * @return a switch indicating whether contexts of undeployed archives are kept for reuse
+     */
+    public boolean isReuseContexts() {
+
+        return reuseContexts;
+    }
+
+    /**
+     * Sets the contexts of undeployed archives to be kept running, so a later deployment of an archive with the same
+     * name and content, e.g. by another test class, reuses the context instead of starting a new one. The sessions of
+     * a reused context are expired; any other state the application keeps survives.
+     *
+     * @param reuseContexts
+     *     switch indicating whether contexts of undeployed archives are kept for reuse
+     */
+    public void setReuseContexts(final boolean reuseContexts) {
+
+        this.reuseContexts = reuseContexts;
+    }
+
+    /**
+     * @return the maximum number of contexts kept for reuse
+     */
+    public int getMaxReusableContexts() {
+
+        return maxReusableContexts;
+    }
+
+    /**
+     * Sets the maximum number of contexts kept for reuse. The least recently used ones are undeployed beyond that.
+     *
+     * @param maxReusableContexts
+     *     the maximum number of contexts kept for reuse
+     */
+    public void setMaxReusableContexts(final int maxReusableContexts) {
+
+        this.maxReusableContexts = maxReusableContexts;
+    }
+
+    /**
+     * @return the maximum total content size of the archives of the contexts kept for reuse, in megabytes
+     */
+    public int getMaxReusableContextsSizeInMegabytes() {
+
+        return maxReusableContextsSizeInMegabytes;
+    }
+
+    /**
+     * Sets the maximum total content size of the archives of the contexts kept for reuse, as approximation of the
+     * memory they hold. The least recently used ones are undeployed beyond that.
+     *
+     * @param maxReusableContextsSizeInMegabytes
+     *     the maximum total content size of the archives of the contexts kept for reuse, in megabytes
+     */
+    public void setMaxReusableContextsSizeInMegabytes(final int maxReusableContextsSizeInMegabytes) {
+
+        this.maxReusableContextsSizeInMegabytes = maxReusableContextsSizeInMegabytes;
+    }
+
+    /**
+     * @return a switch indicating whether a changed archive is redeployed by only updating the changed entries
+     */
+    public boolean isIncrementalRedeploy() {
+
+        return incrementalRedeploy;
+    }
+
+    /**
+     * Sets a changed archive to be redeployed by only writing the entries that changed since the previous deployment of
+     * an archive with the same name into its exploded directory, and reloading the context. Requires unpackArchive.
+     * Contexts of undeployed archives are kept as with reuseContexts, within the same bounds.
+     *
+     * @param incrementalRedeploy
+     *     switch indicating whether a changed archive is redeployed by only updating the changed entries
+     */
+    public void setIncrementalRedeploy(final boolean incrementalRedeploy) {
+
+        this.incrementalRedeploy = incrementalRedeploy;
+    }
+
+    /**
+     * @return a switch indicating whether the connector processes requests on virtual threads
+     */
+    public boolean isVirtualThreads() {
+
+        return virtualThreads;
+    }
+
+    /**
+     * Sets the connector to process requests on virtual threads, so blocking clients do not exhaust a fixed thread
+     * pool. Requires Java 21 or newer; ignored with a warning otherwise.
+     *
+     * @param virtualThreads
+     *     switch indicating whether the connector processes requests on virtual threads
+     */
+    public void setVirtualThreads(final boolean virtualThreads) {
+
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * @return the maximum number of request processing threads, 0 for Tomcat's default
+     */
+    public int getMaxThreads() {
+
+        return maxThreads;
+    }
+
+    /**
+     * Sets the maximum number of request processing threads of the connector. 0 keeps Tomcat's default of 200.
+     *
+     * @param maxThreads
+     *     the maximum number of request processing threads
+     */
+    public void setMaxThreads(final int maxThreads) {
+
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * @return the maximum queue length for incoming connections, 0 for Tomcat's default
+     */
+    public int getAcceptCount() {
+
+        return acceptCount;
+    }
+
+    /**
+     * Sets the maximum queue length for incoming connections when all request processing threads are busy. 0 keeps
+     * Tomcat's default of 100.
+     *
+     * @param acceptCount
+     *     the maximum queue length for incoming connections
+     */
+    public void setAcceptCount(final int acceptCount) {
+
+        this.acceptCount = acceptCount;
+    }
+
+    /**
+     * @return the path of the Unix domain socket an additional connector is bound to, or null
+     */
+    public String getUnixDomainSocketPath() {
+
+        return unixDomainSocketPath;
+    }
+
+    /**
+     * Sets the path of a Unix domain socket to bind an additional NIO connector to, e.g. "/tmp/arquillian.sock", which
+     * avoids TCP overhead and ephemeral port exhaustion for clients on the same host that connect to it themselves.
+     * The Arquillian protocols keep using the TCP connector on bindHttpPort, which stays available.
+     * Requires Java 16 or newer, ignored with a warning otherwise. A stale socket at the path is removed.
+     *
+     * @param unixDomainSocketPath
+     *     the path of the Unix domain socket an additional connector is bound to
+     */
+    public void setUnixDomainSocketPath(final String unixDomainSocketPath) {
+
+        this.unixDomainSocketPath = unixDomainSocketPath;
+    }
 }
@@ -0,0 +1,196 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates CATALINA_BASE directories of their own for servers that must not share the configured one, i.e. the
+ * servers of a {@link ServerPool} and servers listening on allocated ports.
+ * <p>
+ * The files of the configured CATALINA_BASE are hard linked rather than copied where the file system allows, which
+ * takes no time and no space. This relies on Tomcat never writing to these files in place: files it writes, like
+ * tomcat-users.xml, are written to a new file first, which then replaces the link. Directories are always created.
+ * </p>
+ */
+final class CatalinaBase {
+
+    private static final Logger log = Logger.getLogger(CatalinaBase.class.getName());
+
+    private static final String DELETED_SUFFIX = ".deleted";
+
+    private static final long ABANDONED_DELETION_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Executor DELETION_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "arquillian-tomcat-managed-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CatalinaBase() {
+
+    }
+
+    /**
+     * Creates a CATALINA_BASE from the configuration of another one: the conf and lib directories and the given web
+     * applications are linked or copied, logs, temp, work and the appBase are created empty otherwise.
+     *
+     * @param source the CATALINA_BASE to copy
+     * @param target the CATALINA_BASE to create
+     * @param appBase the appBase of the host, relative to CATALINA_BASE
+     * @param webapps the web applications of the appBase to copy, directories or archives, e.g. "manager"; missing
+     *     ones are skipped
+     */
+    static void create(final File source, final File target, final String appBase, final String... webapps)
+        throws IOException {
+
+        copy(new File(source, "conf").toPath(), new File(target, "conf").toPath());
+        if (new File(source, "lib").isDirectory()) {
+            copy(new File(source, "lib").toPath(), new File(target, "lib").toPath());
+        }
+        for (final String directory : new String[] {"logs", "temp", "work", appBase}) {
+            Files.createDirectories(new File(target, directory).toPath());
+        }
+        for (final String webapp : webapps) {
+            final File sourceWebapp = new File(new File(source, appBase), webapp);
+            if (sourceWebapp.exists()) {
+                copy(sourceWebapp.toPath(), new File(new File(target, appBase), webapp).toPath());
+            }
+        }
+    }
+
+    /**
+     * Creates a CATALINA_BASE from the configuration of another one, with all web applications of the appBase.
+     *
+     * @see #create(File, File, String, String...)
+     */
+    static void createCopy(final File source, final File target, final String appBase) throws IOException {
+
+        final String[] webapps = new File(source, appBase).list();
+        create(source, target, appBase, webapps != null ? webapps : new String[0]);
+    }
+
+    /**
+     * Deletes a directory with all its content. Files that cannot be deleted are left behind.
+     */
+    static void delete(final File directory) {
+
+        if (!directory.exists()) {
+            return;
+        }
+        try {
+            Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+
+                    Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+
+                    Files.deleteIfExists(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (final IOException e) {
+            log.log(Level.WARNING, "Unable to delete " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes a directory with all its content on a background thread, after moving it out of the way under a name
+     * marking it as deleted. Directories left marked by a JVM exiting before the deletion completed are deleted by
+     * {@link #deleteAbandoned(File)}.
+     */
+    static void deleteInBackground(final File directory) {
+
+        final File deleted = new File(directory.getParentFile(), directory.getName() + DELETED_SUFFIX);
+        if (directory.renameTo(deleted)) {
+            DELETION_EXECUTOR.execute(() -> delete(deleted));
+        } else {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Deletes the directories marked as deleted in the given directory whose deletion was abandoned, i.e. that have
+     * not been changed for a while.
+     */
+    static void deleteAbandoned(final File parent) {
+
+        final File[] abandoned = parent.listFiles((dir, name) -> name.endsWith(DELETED_SUFFIX));
+        if (abandoned == null) {
+            return;
+        }
+        for (final File directory : abandoned) {
+            if (System.currentTimeMillis() - directory.lastModified() > ABANDONED_DELETION_MILLIS) {
+                delete(directory);
+            }
+        }
+    }
+
+    private static void copy(final Path source, final Path target) throws IOException {
+
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+
+            /**
+             * Cleared once linking failed, as it fails for all files of another file system.
+             */
+            private boolean link = true;
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+                throws IOException {
+
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+
+                final Path targetFile = target.resolve(source.relativize(file).toString());
+                if (link) {
+                    try {
+                        Files.createLink(targetFile, file);
+                        return FileVisitResult.CONTINUE;
+                    } catch (final IOException | UnsupportedOperationException | SecurityException e) {
+                        log.log(Level.FINE, "Unable to link " + file + ", copying files instead", e);
+                        link = false;
+                    }
+                }
+                Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A dynamic AppCDS archive of the classes the server loads, so later starts map them from the archive instead of
+ * loading and verifying them again.
+ * <p>
+ * The archive is keyed by CATALINA_HOME, the JDK, the class path and the additional JVM arguments, each key has its
+ * own file. A server started
+ * without an archive for its key dumps one when it exits, to a file of its own, which is moved into place once the
+ * server stopped. A dump is only kept if the server exited gracefully, as one cut short by a killed server may be
+ * incomplete, and if a JVM started with <code>-Xshare:on</code> maps it. Archives that do not match the JVM are
+ * rejected by the JVM itself, which then runs without them.
+ * </p>
+ *
+ * @see <a href="https://docs.oracle.com/en/java/javase/21/vm/class-data-sharing.html">Class Data Sharing</a>
+ */
+final class ClassDataSharing {
+
+    private static final Logger log = Logger.getLogger(ClassDataSharing.class.getName());
+
+    /**
+     * The first Java version able to dump a dynamic archive with -XX:ArchiveClassesAtExit.
+     */
+    static final int DYNAMIC_ARCHIVE_JAVA_VERSION = 13;
+
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+
+    private static final String DUMP_SUFFIX = ".jsa.tmp";
+
+    /**
+     * Time after which a dump left by a server stopped elsewhere, e.g. a pooled one, is taken to be complete.
+     */
+    private static final long ABANDONED_DUMP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Time given to the JVM probing a dump.
+     */
+    private static final long VERIFY_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final File directory;
+
+    private final String homeKey;
+
+    private final String key;
+
+    private final Predicate<File> verifier;
+
+    private File dumpFile;
+
+    private ClassDataSharing(final File directory, final String homeKey, final String key,
+        final Predicate<File> verifier) {
+
+        this.directory = directory;
+        this.homeKey = homeKey;
+        this.key = key;
+        this.verifier = verifier;
+    }
+
+    /**
+     * Creates the archive handling for a server, if its JVM supports dynamic archives.
+     *
+     * @param directory the directory holding the archives
+     * @param javaHome the Java home of the server
+     * @param catalinaHome the CATALINA_HOME of the server
+     * @param classPath the class path of the server
+     * @param javaVmArguments the additional JVM arguments of the server, as configured
+     * @return the archive handling, or null if the JDK in javaHome cannot dump dynamic archives
+     */
+    static ClassDataSharing create(final File directory, final File javaHome, final File catalinaHome,
+        final String classPath, final String javaVmArguments) {
+
+        return create(directory, javaHome, catalinaHome, classPath, javaVmArguments,
+            dump -> verify(javaHome, classPath, dump));
+    }
+
+    /**
+     * @param verifier tells whether a dump can be mapped by the JVM of the server
+     * @see #create(File, File, File, String, String)
+     */
+    static ClassDataSharing create(final File directory, final File javaHome, final File catalinaHome,
+        final String classPath, final String javaVmArguments, final Predicate<File> verifier) {
+
+        final JavaRelease javaRelease = JavaRelease.read(javaHome);
+        if (javaRelease == null || javaRelease.getFeatureVersion() < DYNAMIC_ARCHIVE_JAVA_VERSION) {
+            return null;
+        }
+        final StringBuilder classPathState = new StringBuilder(classPath);
+        for (final String entry : classPath.split(File.pathSeparator)) {
+            final File file = new File(entry);
+            classPathState.append('|').append(file.lastModified()).append('|').append(file.length());
+        }
+        final String homeKey = hash(catalinaHome.getAbsolutePath());
+        return new ClassDataSharing(directory, homeKey, homeKey + "-" + hash(javaHome.getAbsolutePath() + "|"
+            + javaRelease.getVersion() + "|" + classPathState + "|" + javaVmArguments), verifier);
+    }
+
+    /**
+     * Whether the JVM arguments already configure class data sharing, which is then left to them.
+     */
+    static boolean isConfigured(final List<String> javaVmArguments) {
+
+        for (final String argument : javaVmArguments) {
+            if (argument.startsWith("-Xshare:") || argument.contains("SharedArchiveFile")
+                || argument.contains("ArchiveClassesAtExit") || argument.contains("AutoCreateSharedArchive")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The JVM options using the archive of the key if there is one, or dumping it at exit otherwise.
+     */
+    List<String> getJvmOptions() throws IOException {
+
+        final File archive = getArchive();
+        if (!archive.isFile()) {
+            adoptAbandonedDump();
+        }
+        if (archive.isFile()) {
+            dumpFile = null;
+            return Collections.singletonList("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        }
+        Files.createDirectories(directory.toPath());
+        dumpFile = new File(directory, key + "-" + UUID.randomUUID() + DUMP_SUFFIX);
+        log.info("Creating class data sharing archive " + archive + " when the server stops");
+        return Collections.singletonList("-XX:ArchiveClassesAtExit=" + dumpFile.getAbsolutePath());
+    }
+
+    /**
+     * Moves the archive dumped by the stopped server into place and removes the archives of other keys of the same
+     * CATALINA_HOME, which belong to a former JDK or class path. The dump of a server that did not exit gracefully is
+     * deleted instead.
+     *
+     * @param exitValue the exit value of the server process
+     */
+    void serverStopped(final int exitValue) {
+
+        if (dumpFile == null) {
+            return;
+        }
+        if (exitValue != 0) {
+            log.info("Discarding class data sharing archive " + dumpFile + ", the server exited with " + exitValue);
+            dumpFile.delete();
+        } else if (dumpFile.isFile()) {
+            adopt(dumpFile);
+        }
+        dumpFile = null;
+    }
+
+    File getArchive() {
+
+        return new File(directory, key + ARCHIVE_SUFFIX);
+    }
+
+    private void adoptAbandonedDump() {
+
+        final File[] dumps =
+            directory.listFiles((dir, name) -> name.startsWith(key + "-") && name.endsWith(DUMP_SUFFIX));
+        if (dumps == null) {
+            return;
+        }
+        for (final File dump : dumps) {
+            if (System.currentTimeMillis() - dump.lastModified() > ABANDONED_DUMP_MILLIS && adopt(dump)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Installs the dump if the JVM maps it, deletes it otherwise.
+     *
+     * @return true if the dump was installed
+     */
+    private boolean adopt(final File dump) {
+
+        if (!verifier.test(dump)) {
+            log.warning("Discarding class data sharing archive " + dump + ", the JVM cannot map it");
+            dump.delete();
+            return false;
+        }
+        install(dump);
+        return true;
+    }
+
+    private void install(final File dump) {
+
+        try {
+            Files.move(dump.toPath(), getArchive().toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            log.log(Level.WARNING, "Unable to install class data sharing archive " + getArchive(), e);
+            dump.delete();
+            return;
+        }
+        final File[] stale = directory.listFiles((dir, name) -> name.startsWith(homeKey + "-")
+            && !name.startsWith(key + "-") && !name.equals(getArchive().getName()));
+        if (stale != null) {
+            for (final File file : stale) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Runs <code>java -version</code> with the dump, which fails if the JVM cannot map it as <code>-Xshare:on</code>
+     * requires.
+     */
+    private static boolean verify(final File javaHome, final String classPath, final File dump) {
+
+        final ProcessBuilder processBuilder = new ProcessBuilder(
+            new File(javaHome, "bin" + File.separator + "java").getPath(), "-Xshare:on",
+            "-XX:SharedArchiveFile=" + dump.getAbsolutePath(), "-cp", classPath, "-version");
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        try {
+            final Process process = processBuilder.start();
+            if (!process.waitFor(VERIFY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (final IOException e) {
+            log.log(Level.WARNING, "Unable to verify class data sharing archive " + dump, e);
+            return false;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String hash(final String value) {
+
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * The version of the JDK the managed server runs on, which is not necessarily the one running the tests. Read from the
+ * "release" file in the root of the Java home.
+ */
+final class JavaRelease {
+
+    private final String version;
+
+    private JavaRelease(final String version) {
+
+        this.version = version;
+    }
+
+    /**
+     * Reads the release of the JDK in the given Java home.
+     *
+     * @return the release, or null if the Java home has no readable "release" file
+     */
+    static JavaRelease read(final File javaHome) {
+
+        final File releaseFile = new File(javaHome, "release");
+        if (!releaseFile.isFile()) {
+            return null;
+        }
+        final Properties release = new Properties();
+        try (InputStream in = new FileInputStream(releaseFile)) {
+            release.load(in);
+        } catch (final IOException e) {
+            return null;
+        }
+        final String version = release.getProperty("JAVA_VERSION");
+        if (version == null) {
+            return null;
+        }
+        return new JavaRelease(version.replace("\"", "").trim());
+    }
+
+    /**
+     * @return the full version, e.g. "21.0.2"
+     */
+    String getVersion() {
+
+        return version;
+    }
+
+    /**
+     * @return the feature version, e.g. 21 for "21.0.2" and 8 for "1.8.0_402"
+     */
+    int getFeatureVersion() {
+
+        final String[] parts = version.split("[._+-]");
+        try {
+            final int major = Integer.parseInt(parts[0]);
+            return major == 1 && parts.length > 1 ? Integer.parseInt(parts[1]) : major;
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * A copy of the server configuration with settings applied that Catalina only takes from server.xml, written to a
+ * separate file so the configured one is left untouched.
+ *
+ * @see <a href="https://tomcat.apache.org/tomcat-10.1-doc/config/http.html">The HTTP Connector</a>
+ */
+final class ServerConfigGenerator {
+
+    private static final Logger log = Logger.getLogger(ServerConfigGenerator.class.getName());
+
+    private final File source;
+
+    private final Document document;
+
+    private ServerConfigGenerator(final File source, final Document document) {
+
+        this.source = source;
+        this.document = document;
+    }
+
+    /**
+     * Reads the given server configuration file.
+     *
+     * @throws IOException if the file cannot be read or parsed
+     */
+    static ServerConfigGenerator read(final File serverConfig) throws IOException {
+
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            return new ServerConfigGenerator(serverConfig, factory.newDocumentBuilder().parse(serverConfig));
+        } catch (final IOException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IOException("Unable to parse " + serverConfig, e);
+        }
+    }
+
+    /**
+     * Applies the thread settings to all HTTP connectors, i.e. all connectors not using the AJP protocol. Connectors
+     * running on a shared {@code <Executor>} only get the accept count, as their threads belong to the executor.
+     *
+     * @param useVirtualThreads whether requests are to be processed on virtual threads
+     * @param maxThreads the maximum number of request processing threads, or 0 to keep the configured one
+     * @param acceptCount the maximum length of the queue of incoming connections, or 0 to keep the configured one
+     */
+    void configureHttpConnectors(final boolean useVirtualThreads, final int maxThreads, final int acceptCount) {
+
+        for (final Element connector : getHttpConnectors()) {
+            if (acceptCount > 0) {
+                connector.setAttribute("acceptCount", String.valueOf(acceptCount));
+            }
+            if (!connector.getAttribute("executor").isEmpty()) {
+                if (useVirtualThreads || maxThreads > 0) {
+                    log.warning("Connector on port " + connector.getAttribute("port") + " in " + source
+                        + " uses executor " + connector.getAttribute("executor")
+                        + ", its thread settings are left unchanged");
+                }
+                continue;
+            }
+            if (useVirtualThreads) {
+                connector.setAttribute("useVirtualThreads", "true");
+            }
+            if (maxThreads > 0) {
+                connector.setAttribute("maxThreads", String.valueOf(maxThreads));
+            }
+        }
+    }
+
+    /**
+     * Assigns ports of their own to the server, so it can run next to other servers started from the same
+     * configuration: the given ports to the shutdown port and the first HTTP connector, ports taken from the supplier
+     * to all other connectors. Redirect ports pointing to a connector of the server follow the connector.
+     *
+     * @param shutdownPort the port to listen for the shutdown command on
+     * @param shutdownCommand the shutdown command, or null to keep the configured one
+     * @param httpPort the port of the first HTTP connector
+     * @param ports supplies the ports of the other connectors
+     */
+    void assignPorts(final int shutdownPort, final String shutdownCommand, final int httpPort,
+        final IntSupplier ports) {
+
+        final Element server = document.getDocumentElement();
+        server.setAttribute("port", String.valueOf(shutdownPort));
+        if (shutdownCommand != null) {
+            server.setAttribute("shutdown", shutdownCommand);
+        }
+
+        final List<Element> httpConnectors = getHttpConnectors();
+        final Map<String, String> assignedPorts = new HashMap<String, String>();
+        final NodeList connectors = document.getElementsByTagName("Connector");
+        for (int i = 0; i < connectors.getLength(); i++) {
+            final Element connector = (Element) connectors.item(i);
+            final int port = !httpConnectors.isEmpty() && connector == httpConnectors.get(0) ? httpPort
+                : ports.getAsInt();
+            assignedPorts.put(connector.getAttribute("port"), String.valueOf(port));
+            connector.setAttribute("port", String.valueOf(port));
+        }
+        for (int i = 0; i < connectors.getLength(); i++) {
+            final Element connector = (Element) connectors.item(i);
+            final String redirectPort = assignedPorts.get(connector.getAttribute("redirectPort"));
+            if (redirectPort != null) {
+                connector.setAttribute("redirectPort", redirectPort);
+            }
+        }
+    }
+
+    /**
+     * Sets the scratch directory of every host, holding compiled JSPs and serialized sessions, to a directory of its
+     * own below the given one.
+     */
+    void setWorkDir(final File workDir) {
+
+        final NodeList hosts = document.getElementsByTagName("Host");
+        for (int i = 0; i < hosts.getLength(); i++) {
+            final Element host = (Element) hosts.item(i);
+            host.setAttribute("workDir", new File(workDir, host.getAttribute("name")).getAbsolutePath());
+        }
+    }
+
+    /**
+     * Writes the server configuration to the given file. An existing file is replaced rather than overwritten, so a
+     * file hard linked to the one of another CATALINA_BASE is left unchanged.
+     */
+    void write(final File target) throws IOException {
+
+        final File directory = target.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        final File temp = File.createTempFile(target.getName(), ".tmp", directory);
+        try {
+            final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            transformer.transform(new DOMSource(document), new StreamResult(temp));
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final Exception e) {
+            temp.delete();
+            throw new IOException("Unable to write " + target, e);
+        }
+    }
+
+    List<Element> getHttpConnectors() {
+
+        final List<Element> connectors = new ArrayList<Element>();
+        final NodeList elements = document.getElementsByTagName("Connector");
+        for (int i = 0; i < elements.getLength(); i++) {
+            final Element connector = (Element) elements.item(i);
+            if (!connector.getAttribute("protocol").toUpperCase().contains("AJP")) {
+                connectors.add(connector);
+            }
+        }
+        return connectors;
+    }
+}
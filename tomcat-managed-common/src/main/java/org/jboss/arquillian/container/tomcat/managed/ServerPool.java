@@ -0,0 +1,429 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pool of managed Tomcat servers that outlive the JVM that started them, so later test JVMs on the same host can use
+ * an already started and warmed up server instead of starting their own.
+ * <p>
+ * The pool lives in a directory shared by all JVMs. Each server has a directory of its own, used as its CATALINA_BASE,
+ * with an "instance.properties" file describing it: the key of the configuration it was started with, its process,
+ * its ports and the process of the JVM leasing it, if any. A lock on the "pool.lock" file serializes all changes.
+ * </p>
+ * <p>
+ * Processes are recorded by their pid and start instant. A pid may be reused once its process is gone, so a process
+ * is only taken for the recorded one, and signalled, if it started at the recorded instant.
+ * </p>
+ * <p>
+ * Servers whose process is gone, servers leased by a JVM that is gone and servers idle for longer than the idle
+ * timeout are stopped and removed whenever the pool is changed.
+ * </p>
+ */
+final class ServerPool {
+
+    private static final Logger log = Logger.getLogger(ServerPool.class.getName());
+
+    private static final String LOCK_FILE = "pool.lock";
+
+    private static final String INSTANCE_PROPERTIES = "instance.properties";
+
+    static final String SHUTDOWN_COMMAND = "SHUTDOWN";
+
+    private final File directory;
+
+    private final int size;
+
+    private final long idleTimeoutMillis;
+
+    private final long shutdownTimeoutMillis;
+
+    /**
+     * @param directory the directory shared by all JVMs using the pool
+     * @param size the maximum number of idle servers per configuration
+     * @param idleTimeoutMillis the time after which an idle server is stopped
+     * @param shutdownTimeoutMillis the time a server is given to stop before it is killed
+     */
+    ServerPool(final File directory, final int size, final long idleTimeoutMillis, final long shutdownTimeoutMillis) {
+
+        this.directory = directory;
+        this.size = size;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    /**
+     * Leases an idle server started with the given configuration key. If there is none, a new instance is reserved,
+     * which the caller has to start and then report with {@link #started(Instance, ProcessHandle)}, or give up with
+     * {@link #discard(Instance)}.
+     *
+     * @param key the key of the configuration the server has to be started with
+     * @param ports the ports to assign to a new instance: HTTP, JMX and shutdown port
+     * @return the leased instance
+     */
+    Instance lease(final String key, final int[] ports) throws IOException {
+
+        synchronized (ServerPool.class) {
+            try (PoolLock lock = lock()) {
+                for (final Instance instance : prune()) {
+                    if (instance.isIdle() && instance.getKey().equals(key)) {
+                        instance.setLessee(ProcessHandle.current());
+                        instance.store();
+                        log.info("Leased pooled Tomcat " + instance);
+                        return instance;
+                    }
+                }
+
+                final File instanceDirectory = Files.createTempDirectory(directory.toPath(), "instance-").toFile();
+                final Instance instance = new Instance(instanceDirectory, new Properties());
+                instance.properties.setProperty("key", key);
+                instance.properties.setProperty("httpPort", String.valueOf(ports[0]));
+                instance.properties.setProperty("jmxPort", String.valueOf(ports[1]));
+                instance.properties.setProperty("shutdownPort", String.valueOf(ports[2]));
+                instance.setLessee(ProcessHandle.current());
+                instance.store();
+                return instance;
+            }
+        }
+    }
+
+    /**
+     * Records the process of a newly started instance.
+     */
+    void started(final Instance instance, final ProcessHandle process) throws IOException {
+
+        synchronized (ServerPool.class) {
+            try (PoolLock lock = lock()) {
+                instance.properties.setProperty("pid", String.valueOf(process.pid()));
+                instance.properties.setProperty("pidStart", getStartInstant(process));
+                instance.store();
+            }
+        }
+    }
+
+    /**
+     * Returns a leased instance to the pool, or stops it if the pool already has enough idle servers of its
+     * configuration.
+     */
+    void release(final Instance instance) throws IOException {
+
+        synchronized (ServerPool.class) {
+            try (PoolLock lock = lock()) {
+                int idle = 0;
+                boolean pooled = false;
+                for (final Instance other : prune()) {
+                    if (other.directory.equals(instance.directory)) {
+                        pooled = true;
+                    } else if (other.isIdle() && other.getKey().equals(instance.getKey())) {
+                        idle++;
+                    }
+                }
+                if (!pooled) {
+                    // removed while pruning, its process is gone
+                    return;
+                }
+                if (idle >= size) {
+                    remove(instance);
+                    return;
+                }
+                instance.setLessee(null);
+                instance.properties.setProperty("lastUsed", String.valueOf(System.currentTimeMillis()));
+                instance.store();
+                log.info("Returned Tomcat " + instance + " to the pool");
+            }
+        }
+    }
+
+    /**
+     * Stops and removes an instance that cannot be reused, e.g. one that failed to start.
+     */
+    void discard(final Instance instance) throws IOException {
+
+        synchronized (ServerPool.class) {
+            try (PoolLock lock = lock()) {
+                remove(instance);
+            }
+        }
+    }
+
+    private PoolLock lock() throws IOException {
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create server pool directory " + directory);
+        }
+        return new PoolLock(new File(directory, LOCK_FILE));
+    }
+
+    /**
+     * Removes the instances that cannot be used anymore.
+     *
+     * @return the remaining instances
+     */
+    private List<Instance> prune() throws IOException {
+
+        final List<Instance> instances = new ArrayList<Instance>();
+        final File[] instanceDirectories = directory.listFiles(File::isDirectory);
+        if (instanceDirectories == null) {
+            return instances;
+        }
+        final long now = System.currentTimeMillis();
+        for (final File instanceDirectory : instanceDirectories) {
+            final Instance instance = Instance.load(instanceDirectory);
+            if (instance == null) {
+                CatalinaBase.delete(instanceDirectory);
+            } else if (instance.getLessee() != 0 && !isAlive(instance.getLessee(), instance.getLesseeStart())) {
+                log.info("Removing pooled Tomcat " + instance + ", the JVM leasing it is gone");
+                remove(instance);
+            } else if (instance.getPid() != 0 && !isAlive(instance.getPid(), instance.getPidStart())) {
+                log.info("Removing pooled Tomcat " + instance + ", its process is gone");
+                remove(instance);
+            } else if (instance.isIdle() && now - instance.getLastUsed() > idleTimeoutMillis) {
+                log.info("Stopping pooled Tomcat " + instance + ", idle for longer than the idle timeout");
+                remove(instance);
+            } else {
+                instances.add(instance);
+            }
+        }
+        return instances;
+    }
+
+    private void remove(final Instance instance) {
+
+        if (instance.getPid() != 0) {
+            stop(instance);
+        }
+        CatalinaBase.delete(instance.directory);
+    }
+
+    private void stop(final Instance instance) {
+
+        final Optional<ProcessHandle> process = findProcess(instance.getPid(), instance.getPidStart());
+        if (!process.isPresent()) {
+            // gone, or its pid has been reused by another process that must not be signalled
+            return;
+        }
+        if (!new ServerShutdownCommand("localhost", instance.getShutdownPort(), SHUTDOWN_COMMAND).send()) {
+            process.get().destroy();
+        }
+        try {
+            process.get().onExit().get(shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException | ExecutionException e) {
+            log.warning("Pooled Tomcat " + instance + " did not stop in time, killing it");
+            process.get().descendants().forEach(ProcessHandle::destroyForcibly);
+            process.get().destroyForcibly();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isAlive(final long pid, final String startInstant) {
+
+        return findProcess(pid, startInstant).isPresent();
+    }
+
+    /**
+     * @param pid the recorded pid of the process
+     * @param startInstant the recorded start instant of the process, empty if the platform did not tell it
+     * @return the live process, unless its pid now belongs to a process started at another instant
+     */
+    private static Optional<ProcessHandle> findProcess(final long pid, final String startInstant) {
+
+        return ProcessHandle.of(pid)
+            .filter(ProcessHandle::isAlive)
+            .filter(process -> startInstant.isEmpty() || startInstant.equals(getStartInstant(process)));
+    }
+
+    /**
+     * @return the start instant of the process in milliseconds since the epoch, empty if the platform does not tell it
+     */
+    private static String getStartInstant(final ProcessHandle process) {
+
+        return process.info().startInstant().map(instant -> String.valueOf(instant.toEpochMilli())).orElse("");
+    }
+
+    /**
+     * The lock on the pool directory. It only excludes other JVMs, threads of this JVM synchronize on the class.
+     */
+    private static final class PoolLock implements Closeable {
+
+        private final FileChannel channel;
+
+        private final FileLock lock;
+
+        PoolLock(final File file) throws IOException {
+
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                this.lock = channel.lock();
+            } catch (final IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * A server of the pool.
+     */
+    static final class Instance {
+
+        private final File directory;
+
+        private final Properties properties;
+
+        private Instance(final File directory, final Properties properties) {
+
+            this.directory = directory;
+            this.properties = properties;
+        }
+
+        private static Instance load(final File directory) {
+
+            final Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(new File(directory, INSTANCE_PROPERTIES))) {
+                properties.load(in);
+                return new Instance(directory, properties);
+            } catch (final IOException e) {
+                log.log(Level.FINE, "Unable to read pooled Tomcat instance " + directory, e);
+                return null;
+            }
+        }
+
+        private void store() throws IOException {
+
+            // written to a temporary file first, so the properties are never seen half written
+            final File temp = new File(directory, INSTANCE_PROPERTIES + ".tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                properties.store(out, "Pooled Tomcat instance");
+            }
+            Files.move(temp.toPath(), new File(directory, INSTANCE_PROPERTIES).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * @return the directory of the instance, used as its CATALINA_BASE
+         */
+        File getDirectory() {
+
+            return directory;
+        }
+
+        /**
+         * @return true if the process of the instance has been started
+         */
+        boolean isStarted() {
+
+            return getPid() != 0;
+        }
+
+        String getKey() {
+
+            return properties.getProperty("key", "");
+        }
+
+        int getHttpPort() {
+
+            return Integer.parseInt(properties.getProperty("httpPort", "0"));
+        }
+
+        int getJmxPort() {
+
+            return Integer.parseInt(properties.getProperty("jmxPort", "0"));
+        }
+
+        int getShutdownPort() {
+
+            return Integer.parseInt(properties.getProperty("shutdownPort", "0"));
+        }
+
+        long getPid() {
+
+            return Long.parseLong(properties.getProperty("pid", "0"));
+        }
+
+        private String getPidStart() {
+
+            return properties.getProperty("pidStart", "");
+        }
+
+        private long getLessee() {
+
+            return Long.parseLong(properties.getProperty("lessee", "0"));
+        }
+
+        private String getLesseeStart() {
+
+            return properties.getProperty("lesseeStart", "");
+        }
+
+        /**
+         * @param lessee the process of the JVM leasing the instance, null if it is idle
+         */
+        private void setLessee(final ProcessHandle lessee) {
+
+            properties.setProperty("lessee", lessee != null ? String.valueOf(lessee.pid()) : "0");
+            properties.setProperty("lesseeStart", lessee != null ? getStartInstant(lessee) : "");
+        }
+
+        private long getLastUsed() {
+
+            return Long.parseLong(properties.getProperty("lastUsed", "0"));
+        }
+
+        private boolean isIdle() {
+
+            return getLessee() == 0 && isStarted();
+        }
+
+        @Override
+        public String toString() {
+
+            return directory.getName() + " [pid=" + getPid() + ", httpPort=" + getHttpPort() + "]";
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+
+/**
+ * The shutdown command Catalina listens for on its shutdown port, as declared by the {@code <Server>} element of the
+ * server configuration.
+ *
+ * @see <a href="https://tomcat.apache.org/tomcat-10.1-doc/config/server.html">The Server Component</a>
+ */
+final class ServerShutdownCommand {
+
+    private static final Logger log = Logger.getLogger(ServerShutdownCommand.class.getName());
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final String address;
+
+    private final int port;
+
+    private final String command;
+
+    ServerShutdownCommand(final String address, final int port, final String command) {
+
+        this.address = address;
+        this.port = port;
+        this.command = command;
+    }
+
+    /**
+     * Reads the shutdown command from the given server configuration file.
+     *
+     * @return the shutdown command, or null if the shutdown port is disabled or cannot be determined
+     */
+    static ServerShutdownCommand read(final File serverConfig) {
+
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            final Element server = factory.newDocumentBuilder().parse(serverConfig).getDocumentElement();
+
+            final int port = Integer.parseInt(attribute(server, "port", "8005"));
+            if (port <= 0) {
+                return null;
+            }
+            return new ServerShutdownCommand(attribute(server, "address", "localhost"), port,
+                attribute(server, "shutdown", "SHUTDOWN"));
+        } catch (final Exception e) {
+            // e.g. a port given as ${property} placeholder, which only Catalina itself can resolve
+            log.log(Level.FINE, "Unable to read the shutdown port from " + serverConfig, e);
+            return null;
+        }
+    }
+
+    /**
+     * Sends the shutdown command. Catalina closes the connection without a reply and starts stopping the server.
+     *
+     * @return true if the command was sent, false if nothing listens on the shutdown port
+     */
+    boolean send() {
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(address, port), CONNECT_TIMEOUT_MILLIS);
+            final OutputStream out = socket.getOutputStream();
+            out.write(command.getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return true;
+        } catch (final IOException e) {
+            log.log(Level.FINE, "Unable to send the shutdown command to " + address + ":" + port, e);
+            return false;
+        }
+    }
+
+    int getPort() {
+
+        return port;
+    }
+
+    String getCommand() {
+
+        return command;
+    }
+
+    private static String attribute(final Element element, final String name, final String defaultValue) {
+
+        final String value = element.getAttribute(name);
+        return value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.jboss.arquillian.container.tomcat.managed;
 
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 
@@ -56,6 +58,28 @@ public class TomcatManagedConfiguration extends TomcatConfiguration {
 
     private String loggingProperties = "logging.properties";
 
+    private boolean localDeployment = false;
+
+    private boolean virtualThreads = false;
+
+    private int maxThreads = 0;
+
+    private int acceptCount = 0;
+
+    private boolean classDataSharing = false;
+
+    private String classDataSharingDirectory = System.getProperty("java.io.tmpdir") + "/arquillian-tomcat-cds";
+
+    private boolean serverPool = false;
+
+    private String serverPoolDirectory = System.getProperty("java.io.tmpdir") + "/arquillian-tomcat-pool";
+
+    private int serverPoolSize = 2;
+
+    private int serverPoolIdleTimeoutInSeconds = 1800;
+
+    private int nodes = 1;
+
     public TomcatManagedConfiguration() {
         // if no javaHome set, reuse this Java JVM
         if (javaHome == null || javaHome.isEmpty()) {
@@ -76,6 +100,36 @@ public class TomcatManagedConfiguration extends TomcatConfiguration {
             "Either \"java.home\" system property, JAVA_HOME environment variable or javaHome property in Arquillian configuration "
                 + "must be set and point to a valid directory! " + javaHome + " is not valid directory!");
 
+        if (shutdownTimeoutInSeconds < 0) {
+            throw new ConfigurationException("shutdownTimeoutInSeconds must not be negative");
+        }
+
+        if (maxThreads < 0) {
+            throw new ConfigurationException("maxThreads must not be negative");
+        }
+
+        if (acceptCount < 0) {
+            throw new ConfigurationException("acceptCount must not be negative");
+        }
+
+        if (classDataSharing) {
+            Validate.notNullOrEmpty(classDataSharingDirectory, "classDataSharingDirectory must not be null or empty");
+        }
+
+        if (nodes < 1) {
+            throw new ConfigurationException("nodes must be positive, but was " + nodes);
+        }
+
+        if (serverPool) {
+            Validate.notNullOrEmpty(serverPoolDirectory, "serverPoolDirectory must not be null or empty");
+            if (serverPoolSize < 1) {
+                throw new ConfigurationException("serverPoolSize must be positive, but was " + serverPoolSize);
+            }
+            if (serverPoolIdleTimeoutInSeconds < 0) {
+                throw new ConfigurationException("serverPoolIdleTimeoutInSeconds must not be negative");
+            }
+        }
+
         //to keep backward compatibility, check catalinaBase only when it's set, otherwise catalinaHome will be used instead
         if (catalinaBase != null && catalinaBase.length() != 0) {
             Validate.isValidFile(getCatalinaBase() + "/conf/" + serverConfig,
@@ -154,6 +208,10 @@ public class TomcatManagedConfiguration extends TomcatConfiguration {
         this.startupTimeoutInSeconds = startupTimeoutInSeconds;
     }
 
+    /**
+     * Time to wait for the server to stop after the shutdown command was sent, before the server process and its
+     * descendants are killed.
+     */
     public int getShutdownTimeoutInSeconds() {
 
         return shutdownTimeoutInSeconds;
@@ -205,6 +263,229 @@ public class TomcatManagedConfiguration extends TomcatConfiguration {
         this.loggingProperties = loggingProperties;
     }
 
+    /**
+     * @return a switch indicating whether archives are handed to Tomcat by their local path instead of being uploaded
+     */
+    public boolean isLocalDeployment() {
+
+        return localDeployment;
+    }
+
+    /**
+     * Sets archives to be exported below the Tomcat base directory and deployed by path, so no archive bytes are sent
+     * to the manager application. This is possible because a managed Tomcat always runs on the local host.
+     *
+     * @param localDeployment
+     *     a switch indicating whether archives are deployed by their local path
+     */
+    public void setLocalDeployment(final boolean localDeployment) {
+
+        this.localDeployment = localDeployment;
+    }
+
+    /**
+     * @return a switch indicating whether the HTTP connectors process requests on virtual threads
+     */
+    public boolean isVirtualThreads() {
+
+        return virtualThreads;
+    }
+
+    /**
+     * Sets the HTTP connectors of the server configuration to process requests on virtual threads, so blocking clients
+     * do not exhaust a fixed thread pool. Requires a JDK with virtual threads, i.e. Java 21 or newer, in javaHome;
+     * ignored with a warning otherwise.
+     *
+     * @param virtualThreads
+     *     a switch indicating whether the HTTP connectors process requests on virtual threads
+     */
+    public void setVirtualThreads(final boolean virtualThreads) {
+
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * @return the maximum number of request processing threads of the HTTP connectors, 0 for the configured one
+     */
+    public int getMaxThreads() {
+
+        return maxThreads;
+    }
+
+    /**
+     * Sets the maximum number of request processing threads of the HTTP connectors, overriding the server
+     * configuration. 0 keeps the configured value.
+     *
+     * @param maxThreads
+     *     the maximum number of request processing threads of the HTTP connectors
+     */
+    public void setMaxThreads(final int maxThreads) {
+
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * @return the maximum queue length for incoming connections of the HTTP connectors, 0 for the configured one
+     */
+    public int getAcceptCount() {
+
+        return acceptCount;
+    }
+
+    /**
+     * Sets the maximum queue length for incoming connections of the HTTP connectors when all request processing
+     * threads are busy, overriding the server configuration. 0 keeps the configured value.
+     *
+     * @param acceptCount
+     *     the maximum queue length for incoming connections of the HTTP connectors
+     */
+    public void setAcceptCount(final int acceptCount) {
+
+        this.acceptCount = acceptCount;
+    }
+
+    /**
+     * @return a switch indicating whether the server JVM uses a class data sharing archive of the classes it loads
+     */
+    public boolean isClassDataSharing() {
+
+        return classDataSharing;
+    }
+
+    /**
+     * Sets the server JVM to map the classes it loads from a dynamic class data sharing archive, which cuts its startup
+     * time. The archive is dumped by the first server started for a CATALINA_HOME, JDK, class path and
+     * javaVmArguments, and used by the servers started after it stopped. Disabled by default. Requires Java 13 or newer
+     * in javaHome; left to javaVmArguments if these configure class data sharing already.
+     *
+     * @param classDataSharing
+     *     a switch indicating whether the server JVM uses a class data sharing archive
+     */
+    public void setClassDataSharing(final boolean classDataSharing) {
+
+        this.classDataSharing = classDataSharing;
+    }
+
+    public String getClassDataSharingDirectory() {
+
+        return classDataSharingDirectory;
+    }
+
+    /**
+     * @param classDataSharingDirectory
+     *     the directory holding the class data sharing archives
+     */
+    public void setClassDataSharingDirectory(final String classDataSharingDirectory) {
+
+        this.classDataSharingDirectory = classDataSharingDirectory;
+    }
+
+    /**
+     * @return a switch indicating whether servers are leased from a pool shared by the JVMs of the local host
+     */
+    public boolean isServerPool() {
+
+        return serverPool;
+    }
+
+    /**
+     * Sets servers to be leased from a pool shared by the JVMs of the local host instead of being started and stopped
+     * by each of them. A server is started with a CATALINA_BASE of its own in serverPoolDirectory and free ports;
+     * the configured ports are replaced by the ones of the leased server. When the container stops, the remaining
+     * deployments are undeployed and the server is kept running for the next JVM.
+     *
+     * @param serverPool
+     *     a switch indicating whether servers are leased from a pool
+     */
+    public void setServerPool(final boolean serverPool) {
+
+        this.serverPool = serverPool;
+    }
+
+    public String getServerPoolDirectory() {
+
+        return serverPoolDirectory;
+    }
+
+    /**
+     * @param serverPoolDirectory
+     *     the directory holding the pooled servers and the lock guarding them
+     */
+    public void setServerPoolDirectory(final String serverPoolDirectory) {
+
+        this.serverPoolDirectory = serverPoolDirectory;
+    }
+
+    public int getServerPoolSize() {
+
+        return serverPoolSize;
+    }
+
+    /**
+     * @param serverPoolSize
+     *     the maximum number of idle servers kept running per configuration
+     */
+    public void setServerPoolSize(final int serverPoolSize) {
+
+        this.serverPoolSize = serverPoolSize;
+    }
+
+    public int getServerPoolIdleTimeoutInSeconds() {
+
+        return serverPoolIdleTimeoutInSeconds;
+    }
+
+    /**
+     * @param serverPoolIdleTimeoutInSeconds
+     *     the time after which an idle pooled server is stopped, checked whenever a server is leased or returned
+     */
+    public void setServerPoolIdleTimeoutInSeconds(final int serverPoolIdleTimeoutInSeconds) {
+
+        this.serverPoolIdleTimeoutInSeconds = serverPoolIdleTimeoutInSeconds;
+    }
+
+    public int getNodes() {
+
+        return nodes;
+    }
+
+    /**
+     * Sets the number of servers started from this configuration, e.g. to test cluster-aware applications. Servers
+     * are started, stopped and deployed to concurrently. Each one runs on allocated ports with a CATALINA_BASE of its
+     * own, or is leased from the pool if serverPool is enabled.
+     *
+     * @param nodes
+     *     the number of servers
+     */
+    public void setNodes(final int nodes) {
+
+        this.nodes = nodes;
+    }
+
+    /**
+     * Creates the configuration of a single server of a group: a copy of this configuration, with allocated ports.
+     */
+    TomcatManagedConfiguration createNodeConfiguration() {
+
+        final TomcatManagedConfiguration node = new TomcatManagedConfiguration();
+        try {
+            for (final PropertyDescriptor property : Introspector.getBeanInfo(TomcatManagedConfiguration.class)
+                .getPropertyDescriptors()) {
+                if (property.getReadMethod() != null && property.getWriteMethod() != null) {
+                    property.getWriteMethod().invoke(node, property.getReadMethod().invoke(this));
+                }
+            }
+        } catch (final Exception e) {
+            throw new ConfigurationException("Unable to copy the configuration of a node", e);
+        }
+        node.setNodes(1);
+        node.setBindHttpPort(0);
+        node.setJmxPort(0);
+        node.setJmxServerPort(0);
+        node.validate();
+        return node;
+    }
+
     /**
      * @param outputToConsole
      *     the outputToConsole to set
@@ -21,11 +21,26 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.URL;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
 import org.jboss.arquillian.container.spi.client.container.DeploymentException;
@@ -34,11 +49,11 @@ import org.jboss.arquillian.container.spi.client.protocol.ProtocolDescription;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.arquillian.container.tomcat.AdditionalJavaOptionsParser;
 import org.jboss.arquillian.container.tomcat.ProtocolMetadataParser;
-import org.jboss.arquillian.container.tomcat.ShrinkWrapUtil;
 import org.jboss.arquillian.container.tomcat.TomcatManager;
 import org.jboss.arquillian.container.tomcat.TomcatManagerCommandSpec;
 import org.jboss.arquillian.container.tomcat.Validate;
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 
 /**
  * <p>
@@ -56,6 +71,31 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
 
     private static final Logger log = Logger.getLogger(TomcatManagedContainer.class.getName());
 
+    /**
+     * Line Catalina logs once all services and connectors have been started, e.g. "Server startup in [1234]
+     * milliseconds" (8.5 and newer) or "Server startup in 1234 ms" (older versions).
+     */
+    private static final Pattern STARTUP_COMPLETE =
+        Pattern.compile("Server startup in \\[?\\d+\\]? (?:milliseconds|ms)");
+
+    /**
+     * Output after which the server will never become usable, so waiting for the startup timeout is pointless. Only
+     * the messages Catalina logs for its own connectors and server, and those of the Java launcher, are matched:
+     * deployed applications may well log bind or parse errors of their own without the server failing.
+     */
+    private static final Pattern STARTUP_FAILURE = Pattern.compile("Failed to (?:initialize|start) connector"
+        + "|Failed to (?:initialize|start) component \\[StandardServer|Cannot start server"
+        + "|The required Server component failed to start|StandardServer\\.await: create\\["
+        + "|^Error occurred during initialization of VM|^Error: Could not create the Java Virtual Machine"
+        + "|^Error: Could not find or load main class");
+
+    private static final long STARTUP_PROBE_INTERVAL_MILLIS = 250;
+
+    /**
+     * The first Java version with virtual threads.
+     */
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
     private final TomcatManagerCommandSpec tomcatManagerCommandSpec;
 
     private final ProtocolDescription protocolDescription;
@@ -67,10 +107,56 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
 
     private TomcatManager<? extends TomcatManagedConfiguration> manager;
 
+    private ProtocolMetadataParser<TomcatManagedConfiguration> protocolMetadataParser;
+
     private Thread shutdownThread;
 
     private Process startupProcess;
 
+    /**
+     * The server configuration the server was started with, a generated one if settings had to be applied.
+     */
+    private File serverConfigFile;
+
+    /**
+     * The class data sharing archive of the started server, if any.
+     */
+    private ClassDataSharing classDataSharing;
+
+    /**
+     * The CATALINA_BASE of the server if it runs on a copy of the configured one, i.e. a pooled server or a server with
+     * allocated ports.
+     */
+    private File instanceCatalinaBase;
+
+    /**
+     * The scratch directory of a server with allocated ports below workDir, if configured.
+     */
+    private File instanceWorkDir;
+
+    private ServerPool serverPool;
+
+    /**
+     * The servers of the group if more than one node is configured, this container then delegates to them.
+     */
+    private final List<TomcatManagedContainer> nodes = new ArrayList<TomcatManagedContainer>();
+
+    private ExecutorService nodeExecutor;
+
+    /**
+     * The server leased from the pool, if serverPool is enabled.
+     */
+    private ServerPool.Instance pooledServer;
+
+    private int configuredHttpPort;
+
+    private int configuredJmxPort;
+
+    /**
+     * Names of the archives deployed and not undeployed yet, undeployed before a pooled server is returned.
+     */
+    private final Set<String> deployedArchives = new LinkedHashSet<String>();
+
     TomcatManagedContainer(final ProtocolDescription protocolDescription,
         final TomcatManagerCommandSpec tomcatManagerCommandSpec) {
 
@@ -95,11 +181,31 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
 
         this.configuration = configuration;
         this.manager = new TomcatManager<TomcatManagedConfiguration>(configuration, tomcatManagerCommandSpec);
+        this.protocolMetadataParser = new ProtocolMetadataParser<TomcatManagedConfiguration>(configuration);
+
+        nodes.clear();
+        if (configuration.getNodes() > 1) {
+            for (int i = 0; i < configuration.getNodes(); i++) {
+                final TomcatManagedContainer node = new Node(protocolDescription, tomcatManagerCommandSpec);
+                node.setup(configuration.createNodeConfiguration());
+                nodes.add(node);
+            }
+        }
     }
 
     @Override
     public void start() throws LifecycleException {
 
+        if (!nodes.isEmpty()) {
+            startNodes();
+            return;
+        }
+
+        if (configuration.isServerPool()) {
+            leaseServer();
+            return;
+        }
+
         if (manager.isRunning()) {
             throw new LifecycleException("The server is already running! "
                 + "Managed containers do not support connecting to running server instances due to the "
@@ -110,52 +216,19 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
         }
 
         try {
-            final String CATALINA_HOME = configuration.getCatalinaHome();
-            String CATALINA_BASE = configuration.getCatalinaBase();
-            final String ADDITIONAL_JAVA_OPTS = configuration.getJavaVmArguments();
-
-            if (CATALINA_BASE == null) {
-                CATALINA_BASE = CATALINA_HOME;
+            final File catalinaBase;
+            if (configuration.getBindHttpPort() == 0 || configuration.getJmxPort() == 0) {
+                catalinaBase = allocatePorts();
+            } else {
+                catalinaBase = getCatalinaBaseDirectory();
+                serverConfigFile = prepareServerConfig();
             }
+            classDataSharing = createClassDataSharing();
+            final List<String> cmd =
+                createStartCommand(catalinaBase, serverConfigFile, configuration.getJmxPort(), classDataSharing);
 
-            final String absoluteCatalinaHomePath = new File(CATALINA_HOME).getAbsolutePath();
-            final String absoluteCatalinaBasePath = new File(CATALINA_BASE).getAbsolutePath();
-
-            final String javaCommand = getJavaCommand();
-
-            // construct a command to execute
-            final List<String> cmd = new ArrayList<String>();
-
-            cmd.add(javaCommand);
-            String separator = File.separator;
-
-            cmd.add("-Djava.util.logging.config.file=" + absoluteCatalinaBasePath + separator + "conf" + separator
-                + configuration.getLoggingProperties());
-            cmd.add("-Djava.util.logging.manager=org.apache.juli.ClassLoaderLogManager");
-
-            cmd.add("-Dcom.sun.management.jmxremote.port=" + configuration.getJmxPort());
-            cmd.add("-Dcom.sun.management.jmxremote.ssl=false");
-            cmd.add("-Dcom.sun.management.jmxremote.authenticate=false");
-
-            cmd.addAll(AdditionalJavaOptionsParser.parse(ADDITIONAL_JAVA_OPTS));
-
-            String CLASS_PATH =
-                absoluteCatalinaHomePath + separator + "bin" + separator + "bootstrap.jar" + File.pathSeparator;
-            CLASS_PATH += absoluteCatalinaHomePath + separator + "bin" + separator + "tomcat-juli.jar";
-
-            cmd.add("-classpath");
-            cmd.add(CLASS_PATH);
-            final File endorsed = new File(absoluteCatalinaHomePath + separator + "endorsed");
-            if (endorsed.exists()) {
-                cmd.add("-Djava.endorsed.dirs=" + endorsed.getAbsolutePath());
-            }
-            cmd.add("-Dcatalina.base=" + absoluteCatalinaBasePath);
-            cmd.add("-Dcatalina.home=" + absoluteCatalinaHomePath);
-            cmd.add("-Djava.io.tmpdir=" + absoluteCatalinaBasePath + separator + "temp");
-            cmd.add("org.apache.catalina.startup.Bootstrap");
-            cmd.add("-config");
-            cmd.add(absoluteCatalinaBasePath + separator + "conf" + separator + configuration.getServerConfig());
-            cmd.add("start");
+            // a port that is already taken says nothing about this server, so it is only probed if it was free before
+            final boolean probeHttpPort = !isPortOpen(configuration.getBindHttpPort());
 
             // execute command
             final ProcessBuilder startupProcessBuilder = new ProcessBuilder(cmd);
@@ -163,8 +236,11 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
             startupProcessBuilder.directory(new File(configuration.getCatalinaHome() + "/bin"));
             log.info("Starting Tomcat with: " + cmd);
             startupProcess = startupProcessBuilder.start();
-            new Thread(new ConsoleConsumer(configuration.isOutputToConsole())).start();
+            final ConsoleConsumer consoleConsumer = new ConsoleConsumer(configuration.isOutputToConsole());
+            new Thread(consoleConsumer).start();
             final Process proc = startupProcess;
+            final File instanceBase = instanceCatalinaBase;
+            final File workDir = instanceWorkDir;
 
             shutdownThread = new Thread(new Runnable() {
 
@@ -172,33 +248,45 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
                 public void run() {
 
                     if (proc != null) {
-                        proc.destroy();
                         try {
-                            proc.waitFor();
+                            stopProcess(proc, true);
                         } catch (final InterruptedException e) {
                             throw new RuntimeException(e);
                         }
                     }
+                    if (instanceBase != null) {
+                        CatalinaBase.delete(instanceBase);
+                    }
+                    if (workDir != null) {
+                        CatalinaBase.delete(workDir);
+                    }
                 }
             });
             Runtime.getRuntime().addShutdownHook(shutdownThread);
 
             final long startupTimeout = configuration.getStartupTimeoutInSeconds();
-            long timeout = startupTimeout * 1000;
-            boolean serverAvailable = false;
-            while (timeout > 0 && !serverAvailable) {
-                serverAvailable = manager.isRunning();
-                if (!serverAvailable) {
-                    Thread.sleep(100);
-                    timeout -= 100;
+            final long startTime = System.nanoTime();
+            final long deadline = startTime + TimeUnit.SECONDS.toNanos(startupTimeout);
+            // the console output tells the moment startup completes; the manager probe covers logging setups that do
+            // not write Catalina's startup message to the console
+            while (!consoleConsumer.awaitStartup(STARTUP_PROBE_INTERVAL_MILLIS)
+                && !(probeHttpPort && isPortOpen(configuration.getBindHttpPort()) && manager.isRunning())) {
+                if (System.nanoTime() - deadline >= 0) {
+                    destroystartupProcess();
+                    throw new TimeoutException(
+                        String.format("Managed server was not started within [%d] s", startupTimeout));
                 }
             }
-            if (!serverAvailable) {
+            final String startupFailure = consoleConsumer.getStartupFailure();
+            if (startupFailure != null) {
                 destroystartupProcess();
-                throw new TimeoutException(String.format("Managed server was not started within [%d] s", startupTimeout));
+                throw new LifecycleException("Managed server failed to start: " + startupFailure);
             }
+            log.info(String.format("Tomcat started in %d ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
         } catch (final Exception ex) {
 
+            releaseInstanceCatalinaBase();
             throw new LifecycleException("Could not start container", ex);
         }
     }
@@ -206,18 +294,356 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
     @Override
     public void stop() throws LifecycleException {
 
+        if (!nodes.isEmpty()) {
+            try {
+                onNodes(node -> {
+                    node.stop();
+                    return null;
+                });
+            } catch (final Exception e) {
+                throw e instanceof LifecycleException ? (LifecycleException) e
+                    : new LifecycleException("Could not stop the nodes", e);
+            } finally {
+                // onNodes has waited for every task, so the threads are idle
+                nodeExecutor.shutdown();
+                nodeExecutor = null;
+            }
+            return;
+        }
+
+        if (pooledServer != null) {
+            releaseServer();
+            return;
+        }
+
+        protocolMetadataParser.close();
         if (shutdownThread != null) {
             Runtime.getRuntime().removeShutdownHook(shutdownThread);
             shutdownThread = null;
         }
         try {
             if (startupProcess != null) {
-                startupProcess.destroy();
-                startupProcess.waitFor();
+                final int exitValue = stopProcess(startupProcess, true);
                 startupProcess = null;
+                if (classDataSharing != null) {
+                    classDataSharing.serverStopped(exitValue);
+                    classDataSharing = null;
+                }
             }
         } catch (final Exception e) {
             throw new LifecycleException("Could not stop container", e);
+        } finally {
+            releaseInstanceCatalinaBase();
+        }
+    }
+
+    /**
+     * Creates the command starting a server with the given CATALINA_BASE and server configuration.
+     *
+     * @param classDataSharing the class data sharing archive of the server, or null to start without one
+     */
+    private List<String> createStartCommand(final File catalinaBase, final File serverConfig, final int jmxPort,
+        final ClassDataSharing classDataSharing) throws IOException {
+
+        final String CATALINA_HOME = configuration.getCatalinaHome();
+        final String ADDITIONAL_JAVA_OPTS = configuration.getJavaVmArguments();
+
+        final String absoluteCatalinaHomePath = new File(CATALINA_HOME).getAbsolutePath();
+        final String absoluteCatalinaBasePath = catalinaBase.getAbsolutePath();
+
+        // construct a command to execute
+        final List<String> cmd = new ArrayList<String>();
+
+        cmd.add(getJavaCommand());
+        String separator = File.separator;
+
+        cmd.add("-Djava.util.logging.config.file=" + absoluteCatalinaBasePath + separator + "conf" + separator
+            + configuration.getLoggingProperties());
+        cmd.add("-Djava.util.logging.manager=org.apache.juli.ClassLoaderLogManager");
+
+        cmd.add("-Dcom.sun.management.jmxremote.port=" + jmxPort);
+        cmd.add("-Dcom.sun.management.jmxremote.ssl=false");
+        cmd.add("-Dcom.sun.management.jmxremote.authenticate=false");
+
+        if (classDataSharing != null) {
+            cmd.addAll(classDataSharing.getJvmOptions());
+        }
+
+        cmd.addAll(AdditionalJavaOptionsParser.parse(ADDITIONAL_JAVA_OPTS));
+
+        cmd.add("-classpath");
+        cmd.add(getClassPath());
+        final File endorsed = new File(absoluteCatalinaHomePath + separator + "endorsed");
+        if (endorsed.exists()) {
+            cmd.add("-Djava.endorsed.dirs=" + endorsed.getAbsolutePath());
+        }
+        cmd.add("-Dcatalina.base=" + absoluteCatalinaBasePath);
+        cmd.add("-Dcatalina.home=" + absoluteCatalinaHomePath);
+        cmd.add("-Djava.io.tmpdir=" + absoluteCatalinaBasePath + separator + "temp");
+        cmd.add("org.apache.catalina.startup.Bootstrap");
+        cmd.add("-config");
+        cmd.add(serverConfig.getAbsolutePath());
+        cmd.add("start");
+        return cmd;
+    }
+
+    private String getClassPath() {
+
+        final String bin = new File(configuration.getCatalinaHome()).getAbsolutePath() + File.separator + "bin"
+            + File.separator;
+        return bin + "bootstrap.jar" + File.pathSeparator + bin + "tomcat-juli.jar";
+    }
+
+    /**
+     * Creates the class data sharing archive handling of a server, unless disabled, configured by javaVmArguments
+     * already or not supported by the JDK in javaHome.
+     */
+    private ClassDataSharing createClassDataSharing() {
+
+        if (!configuration.isClassDataSharing()
+            || ClassDataSharing.isConfigured(AdditionalJavaOptionsParser.parse(configuration.getJavaVmArguments()))) {
+            return null;
+        }
+        return ClassDataSharing.create(new File(configuration.getClassDataSharingDirectory()),
+            new File(configuration.getJavaHome()), new File(configuration.getCatalinaHome()), getClassPath(),
+            configuration.getJavaVmArguments());
+    }
+
+    /**
+     * Leases a server from the pool, starting a new one if the pool has no idle server of this configuration, and
+     * points the configuration at its ports.
+     */
+    private void leaseServer() throws LifecycleException {
+
+        configuredHttpPort = configuration.getBindHttpPort();
+        configuredJmxPort = configuration.getJmxPort();
+        serverPool = new ServerPool(new File(configuration.getServerPoolDirectory()),
+            configuration.getServerPoolSize(),
+            TimeUnit.SECONDS.toMillis(configuration.getServerPoolIdleTimeoutInSeconds()),
+            TimeUnit.SECONDS.toMillis(configuration.getShutdownTimeoutInSeconds()));
+
+        ServerPool.Instance instance = null;
+        try {
+            instance = serverPool.lease(getServerPoolKey(), new int[] {findFreePort(), findFreePort(), findFreePort()});
+            // the manager is probed at the ports of the instance while it starts
+            configuration.applyServerPorts(instance.getHttpPort(), instance.getJmxPort());
+            if (!instance.isStarted()) {
+                startPooledServer(instance);
+            }
+        } catch (final Exception e) {
+            configuration.applyServerPorts(configuredHttpPort, configuredJmxPort);
+            if (instance != null) {
+                try {
+                    serverPool.discard(instance);
+                } catch (final IOException discardFailure) {
+                    e.addSuppressed(discardFailure);
+                }
+            }
+            throw new LifecycleException("Could not lease a server from the pool in "
+                + configuration.getServerPoolDirectory(), e);
+        }
+        pooledServer = instance;
+        instanceCatalinaBase = instance.getDirectory();
+    }
+
+    /**
+     * Starts a new server of the pool. Unlike other servers, it is not tied to this JVM: its output goes to
+     * logs/console.out of its CATALINA_BASE and no shutdown hook stops it.
+     */
+    private void startPooledServer(final ServerPool.Instance instance) throws Exception {
+
+        final File catalinaBase = instance.getDirectory();
+        CatalinaBase.create(getCatalinaBaseDirectory(), catalinaBase, configuration.getAppBase(), "manager");
+
+        final File instanceServerConfig =
+            new File(catalinaBase, "conf" + File.separator + configuration.getServerConfig());
+        // a pooled server outlives this JVM, so its scratch directory stays in its CATALINA_BASE
+        writeInstanceServerConfig(instanceServerConfig, instance.getShutdownPort(), ServerPool.SHUTDOWN_COMMAND,
+            instance.getHttpPort(), null);
+
+        // the archive a pooled server dumps when stopped by another JVM is picked up by a later start
+        final List<String> cmd = createStartCommand(catalinaBase, instanceServerConfig, instance.getJmxPort(),
+            createClassDataSharing());
+        final ProcessBuilder processBuilder = new ProcessBuilder(cmd);
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectOutput(
+            ProcessBuilder.Redirect.appendTo(new File(catalinaBase, "logs" + File.separator + "console.out")));
+        processBuilder.directory(new File(configuration.getCatalinaHome() + "/bin"));
+        log.info("Starting pooled Tomcat in " + catalinaBase + " with: " + cmd);
+        final Process process = processBuilder.start();
+        serverPool.started(instance, process.toHandle());
+
+        final long startupTimeout = configuration.getStartupTimeoutInSeconds();
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + TimeUnit.SECONDS.toNanos(startupTimeout);
+        // the HTTP port is bound while Catalina initializes, before the manager is deployed, so only the manager tells
+        // that the server started
+        while (!(isPortOpen(instance.getHttpPort()) && manager.isRunning())) {
+            if (!process.isAlive()) {
+                throw new LifecycleException("Pooled server exited during startup, see "
+                    + new File(catalinaBase, "logs" + File.separator + "console.out"));
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new TimeoutException(
+                    String.format("Pooled server was not started within [%d] s", startupTimeout));
+            }
+            Thread.sleep(STARTUP_PROBE_INTERVAL_MILLIS);
+        }
+        log.info(String.format("Pooled Tomcat started in %d ms",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+    }
+
+    /**
+     * Undeploys what is left of the deployments and returns the leased server to the pool. A server that could not be
+     * cleaned up is stopped instead.
+     */
+    private void releaseServer() throws LifecycleException {
+
+        protocolMetadataParser.close();
+        boolean clean = true;
+        for (final String archiveName : deployedArchives) {
+            try {
+                manager.undeploy("/" + archiveName);
+            } catch (final IOException | DeploymentException e) {
+                log.log(Level.WARNING, "Unable to undeploy " + archiveName + " from pooled server " + pooledServer, e);
+                clean = false;
+            }
+        }
+        deployedArchives.clear();
+        try {
+            if (clean) {
+                serverPool.release(pooledServer);
+            } else {
+                serverPool.discard(pooledServer);
+            }
+        } catch (final IOException e) {
+            throw new LifecycleException("Could not return server " + pooledServer + " to the pool", e);
+        } finally {
+            pooledServer = null;
+            instanceCatalinaBase = null;
+            configuration.applyServerPorts(configuredHttpPort, configuredJmxPort);
+        }
+    }
+
+    /**
+     * Allocates free ports for the HTTP and JMX ports configured as 0, the shutdown port and the ports of all other
+     * connectors, e.g. AJP, so several servers of the same configuration can run side by side. The server gets a copy
+     * of CATALINA_BASE with a server configuration listening on these ports, and the configuration is pointed at them.
+     *
+     * @return the CATALINA_BASE of the server
+     */
+    private File allocatePorts() throws IOException {
+
+        configuredHttpPort = configuration.getBindHttpPort();
+        configuredJmxPort = configuration.getJmxPort();
+        final int httpPort = configuredHttpPort != 0 ? configuredHttpPort : findFreePort();
+        final int jmxPort = configuredJmxPort != 0 ? configuredJmxPort : findFreePort();
+
+        final File instancesDirectory = getInstancesDirectory();
+        CatalinaBase.deleteAbandoned(instancesDirectory);
+        instanceCatalinaBase = Files.createTempDirectory(instancesDirectory.toPath(), "instance-").toFile();
+        CatalinaBase.createCopy(getCatalinaBaseDirectory(), instanceCatalinaBase, configuration.getAppBase());
+        if (configuration.getWorkDir() != null) {
+            instanceWorkDir = new File(getWorkDirectory(), instanceCatalinaBase.getName());
+        }
+        serverConfigFile = new File(instanceCatalinaBase, "conf" + File.separator + configuration.getServerConfig());
+        writeInstanceServerConfig(serverConfigFile, findFreePort(), null, httpPort, instanceWorkDir);
+
+        configuration.applyServerPorts(httpPort, jmxPort);
+        log.info("Allocated HTTP port " + httpPort + " and JMX port " + jmxPort + " for Tomcat in "
+            + instanceCatalinaBase);
+        return instanceCatalinaBase;
+    }
+
+    /**
+     * The directory holding the CATALINA_BASEs of servers with allocated ports. It is placed in the temp directory of
+     * the configured CATALINA_BASE if possible, as files can only be linked within a file system.
+     */
+    private File getInstancesDirectory() throws IOException {
+
+        final File instancesDirectory =
+            new File(getCatalinaBaseDirectory(), "temp" + File.separator + "arquillian-instances");
+        if (instancesDirectory.isDirectory() || instancesDirectory.mkdirs()) {
+            return instancesDirectory;
+        }
+        final File fallback = new File(System.getProperty("java.io.tmpdir"), "arquillian-tomcat-instances");
+        Files.createDirectories(fallback.toPath());
+        return fallback;
+    }
+
+    /**
+     * The configured workDir, relative paths being resolved against CATALINA_BASE like Tomcat does.
+     */
+    private File getWorkDirectory() {
+
+        final File workDir = new File(configuration.getWorkDir());
+        return workDir.isAbsolute() ? workDir : new File(getCatalinaBaseDirectory(), configuration.getWorkDir());
+    }
+
+    /**
+     * Deletes the CATALINA_BASE created for a server with allocated ports in the background and restores the
+     * configured ports.
+     */
+    private void releaseInstanceCatalinaBase() {
+
+        if (instanceCatalinaBase != null && pooledServer == null) {
+            CatalinaBase.deleteInBackground(instanceCatalinaBase);
+            instanceCatalinaBase = null;
+            if (instanceWorkDir != null) {
+                CatalinaBase.deleteInBackground(instanceWorkDir);
+                instanceWorkDir = null;
+            }
+            configuration.applyServerPorts(configuredHttpPort, configuredJmxPort);
+        }
+    }
+
+    /**
+     * Rewrites the server configuration in a CATALINA_BASE of a single server to listen on the given ports and on free
+     * ports for all other connectors, and applies the connector settings.
+     *
+     * @param shutdownCommand the shutdown command, or null to keep the configured one
+     * @param workDir the scratch directory of the server, or null for the work directory of its CATALINA_BASE
+     */
+    private void writeInstanceServerConfig(final File serverConfig, final int shutdownPort,
+        final String shutdownCommand, final int httpPort, final File workDir) throws IOException {
+
+        final ServerConfigGenerator generator = ServerConfigGenerator.read(serverConfig);
+        generator.assignPorts(shutdownPort, shutdownCommand, httpPort, TomcatManagedContainer::findFreePort);
+        if (workDir != null) {
+            generator.setWorkDir(workDir);
+        }
+        generator.configureHttpConnectors(isVirtualThreads(), configuration.getMaxThreads(),
+            configuration.getAcceptCount());
+        generator.write(serverConfig);
+    }
+
+    /**
+     * The key of the settings a pooled server is started with; only servers with the same key are leased. Changes to
+     * the files in the conf directory of CATALINA_BASE change the key.
+     */
+    private String getServerPoolKey() {
+
+        long confLastModified = 0;
+        final File[] confFiles = new File(getCatalinaBaseDirectory(), "conf").listFiles();
+        if (confFiles != null) {
+            for (final File confFile : confFiles) {
+                confLastModified = Math.max(confLastModified, confFile.lastModified());
+            }
+        }
+        return String.join("|", new File(configuration.getCatalinaHome()).getAbsolutePath(),
+            getCatalinaBaseDirectory().getAbsolutePath(), configuration.getJavaHome(),
+            String.valueOf(configuration.getJavaVmArguments()), configuration.getServerConfig(),
+            configuration.getLoggingProperties(), configuration.getAppBase(), String.valueOf(confLastModified),
+            String.valueOf(configuration.isVirtualThreads()), String.valueOf(configuration.getMaxThreads()),
+            String.valueOf(configuration.getAcceptCount()));
+    }
+
+    private static int findFreePort() {
+
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to find a free port", e);
         }
     }
 
@@ -231,17 +657,31 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
 
         Validate.notNull(archive, "Archive must not be null");
 
+        if (!nodes.isEmpty()) {
+            return deployToNodes(archive);
+        }
+
         final String archiveName = manager.normalizeArchiveName(archive.getName());
-        final URL archiveURL = ShrinkWrapUtil.toURL(archive);
         try {
-            manager.deploy("/" + archiveName, archiveURL);
+            if (configuration.isLocalDeployment()) {
+                final File archiveFile = getLocalDeploymentFile(archive);
+                archive.as(ZipExporter.class).exportTo(archiveFile, true);
+                try {
+                    manager.deployLocal("/" + archiveName, archiveFile);
+                } catch (final IOException | DeploymentException | RuntimeException e) {
+                    // no undeploy follows a failed deployment
+                    archiveFile.delete();
+                    throw e;
+                }
+            } else {
+                manager.deploy("/" + archiveName, archive);
+            }
         } catch (final IOException e) {
             throw new DeploymentException("Unable to deploy an archive " + archive.getName(), e);
         }
+        deployedArchives.add(archiveName);
 
-        final ProtocolMetadataParser<TomcatManagedConfiguration> parser =
-            new ProtocolMetadataParser<TomcatManagedConfiguration>(configuration);
-        return parser.retrieveContextServletInfo(archiveName);
+        return protocolMetadataParser.retrieveContextServletInfo(archiveName, archive);
     }
 
     @Override
@@ -249,17 +689,160 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
 
         Validate.notNull(archive, "Archive must not be null");
 
+        if (!nodes.isEmpty()) {
+            try {
+                onNodes(node -> {
+                    node.undeploy(archive);
+                    return null;
+                });
+            } catch (final Exception e) {
+                throw e instanceof DeploymentException ? (DeploymentException) e
+                    : new DeploymentException("Unable to undeploy an archive " + archive.getName(), e);
+            }
+            return;
+        }
+
         final String archiveName = manager.normalizeArchiveName(archive.getName());
         try {
             manager.undeploy("/" + archiveName);
+            deployedArchives.remove(archiveName);
         } catch (final IOException e) {
             throw new DeploymentException("Unable to undeploy an archive " + archive.getName(), e);
+        } finally {
+            if (configuration.isLocalDeployment()) {
+                getLocalDeploymentFile(archive).delete();
+            }
+        }
+    }
+
+    /**
+     * Starts all nodes concurrently. If any of them fails to start, the others are stopped again.
+     */
+    private void startNodes() throws LifecycleException {
+
+        nodeExecutor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "arquillian-tomcat-managed-node");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final List<TomcatManagedContainer> startedNodes = new CopyOnWriteArrayList<TomcatManagedContainer>();
+        final long startTime = System.nanoTime();
+        try {
+            onNodes(node -> {
+                node.start();
+                startedNodes.add(node);
+                return null;
+            });
+        } catch (final Exception e) {
+            for (final TomcatManagedContainer node : startedNodes) {
+                try {
+                    node.stop();
+                } catch (final LifecycleException stopFailure) {
+                    e.addSuppressed(stopFailure);
+                }
+            }
+            nodeExecutor.shutdown();
+            nodeExecutor = null;
+            throw e instanceof LifecycleException ? (LifecycleException) e
+                : new LifecycleException("Could not start the nodes", e);
+        }
+        log.info(String.format("%d Tomcat nodes started in %d ms", nodes.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+    }
+
+    /**
+     * Deploys the archive to all nodes concurrently. If it fails to deploy to any of them, it is undeployed from the
+     * others again.
+     *
+     * @return the contexts of all nodes, those of the first node first, so protocols using a single HTTPContext talk
+     *     to the first node
+     */
+    private ProtocolMetaData deployToNodes(final Archive<?> archive) throws DeploymentException {
+
+        final List<TomcatManagedContainer> deployedNodes = new CopyOnWriteArrayList<TomcatManagedContainer>();
+        final List<ProtocolMetaData> nodeMetaData;
+        try {
+            nodeMetaData = onNodes(node -> {
+                final ProtocolMetaData metaData = node.deploy(archive);
+                deployedNodes.add(node);
+                return metaData;
+            });
+        } catch (final Exception e) {
+            for (final TomcatManagedContainer node : deployedNodes) {
+                try {
+                    node.undeploy(archive);
+                } catch (final DeploymentException undeployFailure) {
+                    e.addSuppressed(undeployFailure);
+                }
+            }
+            throw e instanceof DeploymentException ? (DeploymentException) e
+                : new DeploymentException("Unable to deploy an archive " + archive.getName(), e);
+        }
+        final ProtocolMetaData protocolMetaData = new ProtocolMetaData();
+        for (final ProtocolMetaData metaData : nodeMetaData) {
+            for (final Object context : metaData.getContexts(Object.class)) {
+                protocolMetaData.addContext(context);
+            }
+        }
+        return protocolMetaData;
+    }
+
+    /**
+     * Applies an operation to all nodes concurrently and waits for all of them to complete.
+     *
+     * @return the results, in the order of the nodes
+     * @throws Exception the failure of the first failed node, with those of other failed nodes suppressed
+     */
+    private <T> List<T> onNodes(final NodeOperation<T> operation) throws Exception {
+
+        final List<Future<T>> futures = new ArrayList<Future<T>>();
+        for (final TomcatManagedContainer node : nodes) {
+            futures.add(nodeExecutor.submit(() -> operation.apply(node)));
+        }
+        final List<T> results = new ArrayList<T>();
+        Exception failure = null;
+        for (final Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (final ExecutionException e) {
+                final Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * An operation on a node of a group.
+     */
+    @FunctionalInterface
+    private interface NodeOperation<T> {
+
+        T apply(TomcatManagedContainer node) throws Exception;
+    }
+
+    /**
+     * A single server of a group, configured by {@link TomcatManagedConfiguration#createNodeConfiguration()}.
+     */
+    private static final class Node extends TomcatManagedContainer {
+
+        Node(final ProtocolDescription protocolDescription, final TomcatManagerCommandSpec tomcatManagerCommandSpec) {
+
+            super(protocolDescription, tomcatManagerCommandSpec);
         }
     }
 
     /**
      * Runnable that consumes the output of the startupProcess. If nothing consumes the output the AS will hang on some
-     * platforms
+     * platforms. While the server is starting, the output is also watched for Catalina's startup message and for
+     * fatal boot errors.
      *
      * @author Stuart Douglas
      */
@@ -267,6 +850,10 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
 
         private final boolean writeOutput;
 
+        private final CountDownLatch startupLatch = new CountDownLatch(1);
+
+        private volatile String startupFailure;
+
         ConsoleConsumer(final boolean writeOutput) {
 
             this.writeOutput = writeOutput;
@@ -283,24 +870,192 @@ abstract class TomcatManagedContainer implements DeployableContainer<TomcatManag
                     if (writeOutput) {
                         System.out.println(line);
                     }
+                    if (startupLatch.getCount() > 0) {
+                        if (isStartupFailure(line)) {
+                            startupFailure = line.trim();
+                            startupLatch.countDown();
+                        } else if (isStartupComplete(line)) {
+                            startupLatch.countDown();
+                        }
+                    }
                 }
             } catch (final IOException e) {
+            } finally {
+                if (startupLatch.getCount() > 0) {
+                    startupFailure = "process exited before startup completed";
+                    startupLatch.countDown();
+                }
             }
         }
+
+        /**
+         * Waits for the startup outcome to show up in the output.
+         *
+         * @return true if startup either completed or failed, false if the wait timed out
+         */
+        boolean awaitStartup(final long timeoutMillis) throws InterruptedException {
+
+            return startupLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * The output line describing why startup failed, or null if no failure was seen.
+         */
+        String getStartupFailure() {
+
+            return startupFailure;
+        }
+    }
+
+    static boolean isStartupComplete(final String line) {
+
+        return STARTUP_COMPLETE.matcher(line).find();
+    }
+
+    static boolean isStartupFailure(final String line) {
+
+        return STARTUP_FAILURE.matcher(line).find();
+    }
+
+    /**
+     * Checks whether something accepts connections on the given port. Tomcat binds its connectors while the server is
+     * initialized, before any web application is deployed, so an open port does not tell that the server started.
+     */
+    private boolean isPortOpen(final int port) {
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(configuration.getBindAddress(), port),
+                (int) STARTUP_PROBE_INTERVAL_MILLIS);
+            return true;
+        } catch (final IOException e) {
+            return false;
+        }
     }
 
     private int destroystartupProcess() {
 
         if (startupProcess == null)
             return 0;
-        startupProcess.destroy();
         try {
-            return startupProcess.waitFor();
+            final int exitValue = stopProcess(startupProcess, false);
+            if (classDataSharing != null) {
+                classDataSharing.serverStopped(exitValue);
+                classDataSharing = null;
+            }
+            return exitValue;
         } catch (final InterruptedException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Stops the server process, either by sending Catalina's shutdown command or by terminating the process. If the
+     * process does not exit within shutdownTimeoutInSeconds, the process and all its descendants are killed.
+     *
+     * @return the exit value of the process
+     */
+    private int stopProcess(final Process process, final boolean graceful) throws InterruptedException {
+
+        final long startTime = System.nanoTime();
+        // collected up front, as descendants are no longer reachable from the process once it exited
+        final List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+
+        final ServerShutdownCommand shutdownCommand =
+            graceful ? ServerShutdownCommand.read(serverConfigFile) : null;
+        if (shutdownCommand == null || !shutdownCommand.send()) {
+            process.destroy();
+        }
+
+        final int shutdownTimeout = configuration.getShutdownTimeoutInSeconds();
+        if (!process.waitFor(shutdownTimeout, TimeUnit.SECONDS)) {
+            log.warning(String.format("Managed server did not stop within [%d] s, killing it", shutdownTimeout));
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+        final int exitValue = process.waitFor();
+        for (final ProcessHandle descendant : descendants) {
+            descendant.destroyForcibly();
+        }
+
+        log.info(String.format("Tomcat stopped in %d ms",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+        return exitValue;
+    }
+
+    /**
+     * The directory used as CATALINA_BASE, which falls back to CATALINA_HOME if not configured.
+     */
+    private File getCatalinaBaseDirectory() {
+
+        final String catalinaBase = configuration.getCatalinaBase();
+        return new File(catalinaBase != null ? catalinaBase : configuration.getCatalinaHome());
+    }
+
+    private File getServerConfigFile() {
+
+        return new File(getCatalinaBaseDirectory(), "conf" + File.separator + configuration.getServerConfig());
+    }
+
+    /**
+     * Writes a copy of the server configuration with the connector settings and workDir applied, if configured. The
+     * copy is placed in the temp directory of CATALINA_BASE, relative paths in it are resolved against CATALINA_BASE
+     * anyway.
+     *
+     * @return the server configuration to start the server with
+     */
+    private File prepareServerConfig() throws IOException {
+
+        final File configuredServerConfig = getServerConfigFile();
+
+        final boolean virtualThreads = isVirtualThreads();
+        if (!virtualThreads && configuration.getMaxThreads() == 0 && configuration.getAcceptCount() == 0
+            && configuration.getWorkDir() == null) {
+            return configuredServerConfig;
+        }
+
+        final ServerConfigGenerator generator = ServerConfigGenerator.read(configuredServerConfig);
+        generator.configureHttpConnectors(virtualThreads, configuration.getMaxThreads(),
+            configuration.getAcceptCount());
+        if (configuration.getWorkDir() != null) {
+            generator.setWorkDir(getWorkDirectory());
+        }
+        final File generatedServerConfig = new File(getCatalinaBaseDirectory(),
+            "temp" + File.separator + "arquillian-" + new File(configuration.getServerConfig()).getName());
+        generator.write(generatedServerConfig);
+        return generatedServerConfig;
+    }
+
+    /**
+     * Whether the HTTP connectors are to process requests on virtual threads, which requires the JDK of the server to
+     * have them.
+     */
+    private boolean isVirtualThreads() {
+
+        if (configuration.isVirtualThreads()) {
+            final JavaRelease javaRelease = JavaRelease.read(new File(configuration.getJavaHome()));
+            if (javaRelease != null && javaRelease.getFeatureVersion() < VIRTUAL_THREADS_JAVA_VERSION) {
+                log.warning("Java " + javaRelease.getVersion() + " in " + configuration.getJavaHome()
+                    + " has no virtual threads, using platform threads");
+                return false;
+            }
+        }
+        return configuration.isVirtualThreads();
+    }
+
+    /**
+     * The file a local deployment of the given archive is exported to. It is kept outside of the appBase, so the
+     * Tomcat auto deployer does not pick it up on its own.
+     */
+    private File getLocalDeploymentFile(final Archive<?> archive) throws DeploymentException {
+
+        final File catalinaBase = instanceCatalinaBase != null ? instanceCatalinaBase : getCatalinaBaseDirectory();
+        final File directory = new File(catalinaBase, "temp" + File.separator + "arquillian-deployments");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new DeploymentException("Unable to create local deployment directory " + directory.getAbsolutePath());
+        }
+        return new File(directory, archive.getName());
+    }
+
     String getJavaCommand() {
 
         if (configuration == null) {
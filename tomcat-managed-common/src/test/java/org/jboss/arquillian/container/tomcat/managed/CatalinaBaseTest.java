@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CatalinaBaseTest {
+
+    private File source;
+
+    private File target;
+
+    @Before
+    public void createSource() throws Exception {
+
+        source = Files.createTempDirectory("catalina-base").toFile();
+        target = new File(Files.createTempDirectory("instances").toFile(), "instance");
+        write("conf/server.xml", "<Server/>");
+        write("lib/driver.jar", "jar");
+        write("webapps/manager/WEB-INF/web.xml", "<web-app/>");
+        write("webapps/app.war", "war");
+        write("logs/catalina.log", "log");
+    }
+
+    @After
+    public void deleteDirectories() {
+
+        CatalinaBase.delete(source);
+        CatalinaBase.delete(target.getParentFile());
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+
+        CatalinaBase.create(source, target, "webapps", "manager", "missing");
+
+        assertEquals("<Server/>", read("conf/server.xml"));
+        assertEquals("jar", read("lib/driver.jar"));
+        assertEquals("<web-app/>", read("webapps/manager/WEB-INF/web.xml"));
+        assertFalse(new File(target, "webapps/app.war").exists());
+        assertTrue(new File(target, "work").isDirectory());
+        assertTrue(new File(target, "temp").isDirectory());
+        assertTrue(new File(target, "logs").isDirectory());
+        assertFalse(new File(target, "logs/catalina.log").exists());
+    }
+
+    @Test
+    public void testCreateCopy() throws Exception {
+
+        CatalinaBase.createCopy(source, target, "webapps");
+
+        assertEquals("<web-app/>", read("webapps/manager/WEB-INF/web.xml"));
+        assertEquals("war", read("webapps/app.war"));
+    }
+
+    @Test
+    public void testLinkFiles() throws Exception {
+
+        CatalinaBase.create(source, target, "webapps", "manager");
+
+        assertTrue(Files.isSameFile(new File(source, "conf/server.xml").toPath(),
+            new File(target, "conf/server.xml").toPath()));
+    }
+
+    @Test
+    public void testDeleteInBackground() throws Exception {
+
+        CatalinaBase.createCopy(source, target, "webapps");
+
+        CatalinaBase.deleteInBackground(target);
+
+        assertFalse(target.exists());
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (target.getParentFile().list().length > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, target.getParentFile().list().length);
+        assertTrue(new File(source, "conf/server.xml").isFile());
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+
+        CatalinaBase.createCopy(source, target, "webapps");
+
+        CatalinaBase.delete(target);
+
+        assertFalse(target.exists());
+        assertTrue(new File(source, "conf/server.xml").isFile());
+    }
+
+    private void write(final String path, final String content) throws Exception {
+
+        final File file = new File(source, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(final String path) throws Exception {
+
+        return new String(Files.readAllBytes(new File(target, path).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassDataSharingTest {
+
+    private static final String DUMP_OPTION = "-XX:ArchiveClassesAtExit=";
+
+    private File directory;
+
+    private File catalinaHome;
+
+    /**
+     * What the JVM probing a dump tells.
+     */
+    private boolean mappable = true;
+
+    @Before
+    public void createDirectories() throws Exception {
+
+        directory = Files.createTempDirectory("cds").toFile();
+        catalinaHome = Files.createTempDirectory("catalina-home").toFile();
+    }
+
+    @After
+    public void deleteDirectories() {
+
+        CatalinaBase.delete(directory);
+        CatalinaBase.delete(catalinaHome);
+    }
+
+    @Test
+    public void testDumpArchiveThenUseIt() throws Exception {
+
+        final ClassDataSharing classDataSharing = create("21.0.2", "bootstrap.jar");
+
+        final List<String> dumpOptions = classDataSharing.getJvmOptions();
+        assertTrue(dumpOptions.get(0).startsWith(DUMP_OPTION));
+        dump(dumpOptions);
+        classDataSharing.serverStopped(0);
+
+        assertTrue(classDataSharing.getArchive().isFile());
+        assertEquals(Arrays.asList("-XX:SharedArchiveFile=" + classDataSharing.getArchive().getAbsolutePath()),
+            create("21.0.2", "bootstrap.jar").getJvmOptions());
+    }
+
+    @Test
+    public void testKeepNoArchiveIfNoneWasDumped() throws Exception {
+
+        final ClassDataSharing classDataSharing = create("21.0.2", "bootstrap.jar");
+
+        classDataSharing.getJvmOptions();
+        classDataSharing.serverStopped(0);
+
+        assertFalse(classDataSharing.getArchive().exists());
+    }
+
+    @Test
+    public void testDiscardDumpOfServerNotStoppedGracefully() throws Exception {
+
+        final ClassDataSharing classDataSharing = create("21.0.2", "bootstrap.jar");
+
+        dump(classDataSharing.getJvmOptions());
+        classDataSharing.serverStopped(143);
+
+        assertFalse(classDataSharing.getArchive().exists());
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void testDiscardDumpThatCannotBeMapped() throws Exception {
+
+        final ClassDataSharing classDataSharing = create("21.0.2", "bootstrap.jar");
+        mappable = false;
+
+        dump(classDataSharing.getJvmOptions());
+        classDataSharing.serverStopped(0);
+
+        assertFalse(classDataSharing.getArchive().exists());
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void testDiscardAbandonedDumpThatCannotBeMapped() throws Exception {
+
+        final List<String> dumpOptions = create("21.0.2", "bootstrap.jar").getJvmOptions();
+        final File dumpFile = dump(dumpOptions);
+        // left by a server stopped elsewhere, e.g. a pooled one
+        dumpFile.setLastModified(System.currentTimeMillis() - 120000);
+        mappable = false;
+
+        final ClassDataSharing classDataSharing = create("21.0.2", "bootstrap.jar");
+
+        assertTrue(classDataSharing.getJvmOptions().get(0).startsWith(DUMP_OPTION));
+        assertFalse(classDataSharing.getArchive().exists());
+        assertFalse(dumpFile.exists());
+    }
+
+    @Test
+    public void testReplaceArchiveOfFormerJdk() throws Exception {
+
+        final ClassDataSharing former = create("17.0.9", "bootstrap.jar");
+        dump(former.getJvmOptions());
+        former.serverStopped(0);
+
+        final ClassDataSharing current = create("21.0.2", "bootstrap.jar");
+        assertTrue(current.getJvmOptions().get(0).startsWith(DUMP_OPTION));
+        dump(current.getJvmOptions());
+        current.serverStopped(0);
+
+        assertTrue(current.getArchive().isFile());
+        assertFalse(former.getArchive().exists());
+    }
+
+    @Test
+    public void testArchiveKeyedByJavaVmArguments() throws Exception {
+
+        final ClassDataSharing classDataSharing = create("21.0.2", "bootstrap.jar", "-Xmx512m");
+        dump(classDataSharing.getJvmOptions());
+        classDataSharing.serverStopped(0);
+
+        assertTrue(create("21.0.2", "bootstrap.jar", "-Xmx1g").getJvmOptions().get(0).startsWith(DUMP_OPTION));
+    }
+
+    @Test
+    public void testNoArchiveBeforeJava13() throws Exception {
+
+        assertNull(create("11.0.21", "bootstrap.jar"));
+    }
+
+    @Test
+    public void testIsConfigured() {
+
+        assertTrue(ClassDataSharing.isConfigured(Arrays.asList("-Xmx512m", "-Xshare:off")));
+        assertTrue(ClassDataSharing.isConfigured(Arrays.asList("-XX:SharedArchiveFile=app.jsa")));
+        assertFalse(ClassDataSharing.isConfigured(Arrays.asList("-Xmx512m")));
+    }
+
+    private ClassDataSharing create(final String javaVersion, final String jar) throws Exception {
+
+        return create(javaVersion, jar, "");
+    }
+
+    private ClassDataSharing create(final String javaVersion, final String jar, final String javaVmArguments)
+        throws Exception {
+
+        final File javaHome = new File(catalinaHome, "java-" + javaVersion);
+        javaHome.mkdirs();
+        Files.write(new File(javaHome, "release").toPath(),
+            ("JAVA_VERSION=\"" + javaVersion + "\"").getBytes(StandardCharsets.UTF_8));
+        return ClassDataSharing.create(directory, javaHome, catalinaHome,
+            new File(catalinaHome, jar).getAbsolutePath(), javaVmArguments, dump -> mappable);
+    }
+
+    /**
+     * Does what the server JVM does when it exits.
+     */
+    private File dump(final List<String> options) throws Exception {
+
+        final File dumpFile = new File(options.get(0).substring(DUMP_OPTION.length()));
+        Files.write(dumpFile.toPath(), new byte[] {1});
+        return dumpFile;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+public class JavaReleaseTest {
+
+    @Test
+    public void testReadRelease() throws Exception {
+
+        final JavaRelease release = JavaRelease.read(javaHome("JAVA_VERSION=\"21.0.2\""));
+
+        assertEquals("21.0.2", release.getVersion());
+        assertEquals(21, release.getFeatureVersion());
+    }
+
+    @Test
+    public void testReadLegacyRelease() throws Exception {
+
+        assertEquals(8, JavaRelease.read(javaHome("JAVA_VERSION=\"1.8.0_402\"")).getFeatureVersion());
+    }
+
+    @Test
+    public void testReadMissingRelease() throws Exception {
+
+        assertNull(JavaRelease.read(javaHome("IMPLEMENTOR=\"Eclipse Adoptium\"")));
+        assertNull(JavaRelease.read(new File("does-not-exist")));
+    }
+
+    private File javaHome(final String release) throws Exception {
+
+        final File javaHome = Files.createTempDirectory("java-home").toFile();
+        final File releaseFile = new File(javaHome, "release");
+        Files.write(releaseFile.toPath(), release.getBytes(StandardCharsets.UTF_8));
+        releaseFile.deleteOnExit();
+        javaHome.deleteOnExit();
+        return javaHome;
+    }
+}
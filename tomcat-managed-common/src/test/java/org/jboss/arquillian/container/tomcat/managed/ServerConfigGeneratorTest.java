@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+public class ServerConfigGeneratorTest {
+
+    private static final String CONNECTORS = "<Connector port=\"8080\" protocol=\"HTTP/1.1\" maxThreads=\"150\"/>"
+        + "<Connector port=\"8009\" protocol=\"AJP/1.3\"/>"
+        + "<Connector port=\"8443\" executor=\"tomcatThreadPool\"/>";
+
+    @Test
+    public void testConfigureHttpConnectors() throws Exception {
+
+        final ServerConfigGenerator generator = ServerConfigGenerator.read(serverConfig(CONNECTORS));
+
+        generator.configureHttpConnectors(true, 1000, 500);
+
+        final List<Element> connectors = writeAndRead(generator).getHttpConnectors();
+        assertEquals(2, connectors.size());
+        assertEquals("true", connectors.get(0).getAttribute("useVirtualThreads"));
+        assertEquals("1000", connectors.get(0).getAttribute("maxThreads"));
+        assertEquals("500", connectors.get(0).getAttribute("acceptCount"));
+        // threads of a connector on a shared executor belong to the executor
+        assertEquals("", connectors.get(1).getAttribute("useVirtualThreads"));
+        assertEquals("", connectors.get(1).getAttribute("maxThreads"));
+        assertEquals("500", connectors.get(1).getAttribute("acceptCount"));
+    }
+
+    @Test
+    public void testKeepConfiguredThreadSettings() throws Exception {
+
+        final ServerConfigGenerator generator = ServerConfigGenerator.read(serverConfig(CONNECTORS));
+
+        generator.configureHttpConnectors(false, 0, 0);
+
+        final Element connector = writeAndRead(generator).getHttpConnectors().get(0);
+        assertEquals("", connector.getAttribute("useVirtualThreads"));
+        assertEquals("150", connector.getAttribute("maxThreads"));
+        assertEquals("", connector.getAttribute("acceptCount"));
+    }
+
+    @Test
+    public void testAssignPorts() throws Exception {
+
+        final ServerConfigGenerator generator = ServerConfigGenerator.read(
+            serverConfig("<Connector port=\"8080\" protocol=\"HTTP/1.1\" redirectPort=\"8443\"/>" + CONNECTORS));
+        final AtomicInteger ports = new AtomicInteger(20000);
+
+        generator.assignPorts(19005, "STOP", 19080, ports::incrementAndGet);
+
+        final File generatedServerConfig = File.createTempFile("generated-server", ".xml");
+        generatedServerConfig.deleteOnExit();
+        generator.write(generatedServerConfig);
+        final ServerShutdownCommand shutdownCommand = ServerShutdownCommand.read(generatedServerConfig);
+        assertEquals(19005, shutdownCommand.getPort());
+        assertEquals("STOP", shutdownCommand.getCommand());
+        final List<Element> connectors = ServerConfigGenerator.read(generatedServerConfig).getHttpConnectors();
+        assertEquals("19080", connectors.get(0).getAttribute("port"));
+        assertEquals("20003", connectors.get(0).getAttribute("redirectPort"));
+        assertEquals("20001", connectors.get(1).getAttribute("port"));
+        assertEquals("20003", connectors.get(2).getAttribute("port"));
+    }
+
+    @Test
+    public void testSetWorkDir() throws Exception {
+
+        final File serverConfig = File.createTempFile("server", ".xml");
+        serverConfig.deleteOnExit();
+        Files.write(serverConfig.toPath(), ("<Server><Service><Engine><Host name=\"localhost\"/>"
+            + "<Host name=\"other\"/></Engine></Service></Server>").getBytes(StandardCharsets.UTF_8));
+        final ServerConfigGenerator generator = ServerConfigGenerator.read(serverConfig);
+        final File workDir = new File("target", "work");
+
+        generator.setWorkDir(workDir);
+
+        final File generatedServerConfig = File.createTempFile("generated-server", ".xml");
+        generatedServerConfig.deleteOnExit();
+        generator.write(generatedServerConfig);
+        final String generated = new String(Files.readAllBytes(generatedServerConfig.toPath()), StandardCharsets.UTF_8);
+        assertTrue(generated.contains("workDir=\"" + new File(workDir, "localhost").getAbsolutePath() + "\""));
+        assertTrue(generated.contains("workDir=\"" + new File(workDir, "other").getAbsolutePath() + "\""));
+    }
+
+    @Test
+    public void testWriteLeavesLinkedFileUnchanged() throws Exception {
+
+        final File serverConfig = serverConfig(CONNECTORS);
+        final File linkedServerConfig = new File(serverConfig.getParentFile(), "linked-" + serverConfig.getName());
+        linkedServerConfig.deleteOnExit();
+        Files.createLink(linkedServerConfig.toPath(), serverConfig.toPath());
+        final ServerConfigGenerator generator = ServerConfigGenerator.read(linkedServerConfig);
+
+        generator.configureHttpConnectors(false, 1000, 0);
+        generator.write(linkedServerConfig);
+
+        assertEquals("150", ServerConfigGenerator.read(serverConfig).getHttpConnectors().get(0)
+            .getAttribute("maxThreads"));
+        assertEquals("1000", ServerConfigGenerator.read(linkedServerConfig).getHttpConnectors().get(0)
+            .getAttribute("maxThreads"));
+    }
+
+    private ServerConfigGenerator writeAndRead(final ServerConfigGenerator generator) throws Exception {
+
+        final File generatedServerConfig = File.createTempFile("generated-server", ".xml");
+        generatedServerConfig.deleteOnExit();
+        generator.write(generatedServerConfig);
+        return ServerConfigGenerator.read(generatedServerConfig);
+    }
+
+    private File serverConfig(final String connectors) throws Exception {
+
+        final File serverConfig = File.createTempFile("server", ".xml");
+        serverConfig.deleteOnExit();
+        Files.write(serverConfig.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Server port=\"8005\">"
+            + "<Service name=\"Catalina\">" + connectors + "</Service></Server>").getBytes(StandardCharsets.UTF_8));
+        return serverConfig;
+    }
+}
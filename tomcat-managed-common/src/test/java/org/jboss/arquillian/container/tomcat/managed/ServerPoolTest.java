@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServerPoolTest {
+
+    private static final int[] PORTS = {18080, 11099, 18005};
+
+    private File directory;
+
+    private ServerPool pool;
+
+    @Before
+    public void createPool() throws Exception {
+
+        directory = Files.createTempDirectory("server-pool").toFile();
+        pool = new ServerPool(directory, 1, 60000, 1000);
+    }
+
+    @After
+    public void deletePool() {
+
+        CatalinaBase.delete(directory);
+    }
+
+    @Test
+    public void testLeaseReservesNewInstance() throws Exception {
+
+        final ServerPool.Instance instance = pool.lease("key", PORTS);
+
+        assertFalse(instance.isStarted());
+        assertTrue(instance.getDirectory().isDirectory());
+        assertEquals(18080, instance.getHttpPort());
+        assertEquals(11099, instance.getJmxPort());
+        assertEquals(18005, instance.getShutdownPort());
+    }
+
+    @Test
+    public void testLeaseReleasedInstance() throws Exception {
+
+        final ServerPool.Instance instance = pool.lease("key", PORTS);
+        // a process that outlives the test stands in for the server
+        pool.started(instance, ProcessHandle.current());
+        pool.release(instance);
+
+        final ServerPool.Instance leased = pool.lease("key", PORTS);
+
+        assertTrue(leased.isStarted());
+        assertEquals(instance.getDirectory(), leased.getDirectory());
+    }
+
+    @Test
+    public void testLeasedInstanceIsNotLeasedTwice() throws Exception {
+
+        final ServerPool.Instance instance = pool.lease("key", PORTS);
+        pool.started(instance, ProcessHandle.current());
+
+        assertNotEquals(instance.getDirectory(), pool.lease("key", PORTS).getDirectory());
+    }
+
+    @Test
+    public void testLeaseOnlyInstancesOfSameKey() throws Exception {
+
+        final ServerPool.Instance instance = pool.lease("key", PORTS);
+        pool.started(instance, ProcessHandle.current());
+        pool.release(instance);
+
+        final ServerPool.Instance leased = pool.lease("other-key", PORTS);
+
+        assertFalse(leased.isStarted());
+        assertNotEquals(instance.getDirectory(), leased.getDirectory());
+    }
+
+    @Test
+    public void testRemoveInstanceOfExitedProcess() throws Exception {
+
+        final Process process = new ProcessBuilder(
+            System.getProperty("java.home") + File.separator + "bin" + File.separator + "java", "-version")
+            .redirectErrorStream(true).start();
+        process.getInputStream().transferTo(OutputStream.nullOutputStream());
+        process.waitFor();
+
+        final ServerPool.Instance instance = pool.lease("key", PORTS);
+        pool.started(instance, process.toHandle());
+        pool.release(instance);
+
+        final ServerPool.Instance leased = pool.lease("key", PORTS);
+
+        assertFalse(leased.isStarted());
+        assertFalse(instance.getDirectory().exists());
+    }
+
+    @Test
+    public void testRemoveInstanceWhosePidIsReused() throws Exception {
+
+        final ServerPool.Instance instance = pool.lease("key", PORTS);
+        pool.started(instance, ProcessHandle.current());
+        pool.release(instance);
+        // as if the recorded process is gone and this JVM got its pid, which must not be signalled
+        setProperty(instance, "pidStart", "1");
+
+        final ServerPool.Instance leased = pool.lease("key", PORTS);
+
+        assertFalse(leased.isStarted());
+        assertFalse(instance.getDirectory().exists());
+    }
+
+    @Test
+    public void testDiscardRemovesInstance() throws Exception {
+
+        final ServerPool.Instance instance = pool.lease("key", PORTS);
+
+        pool.discard(instance);
+
+        assertFalse(instance.getDirectory().exists());
+    }
+
+    private static void setProperty(final ServerPool.Instance instance, final String key, final String value)
+        throws Exception {
+
+        final File file = new File(instance.getDirectory(), "instance.properties");
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        properties.setProperty(key, value);
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, null);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.container.tomcat.managed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+public class ServerShutdownCommandTest {
+
+    @Test
+    public void testReadShutdownCommand() throws Exception {
+
+        final ServerShutdownCommand command = ServerShutdownCommand.read(serverConfig("port=\"8105\" shutdown=\"STOP\""));
+
+        assertEquals(8105, command.getPort());
+        assertEquals("STOP", command.getCommand());
+    }
+
+    @Test
+    public void testReadDefaultShutdownCommand() throws Exception {
+
+        final ServerShutdownCommand command = ServerShutdownCommand.read(serverConfig(""));
+
+        assertEquals(8005, command.getPort());
+        assertEquals("SHUTDOWN", command.getCommand());
+    }
+
+    @Test
+    public void testReadDisabledOrUnresolvableShutdownPort() throws Exception {
+
+        assertNull(ServerShutdownCommand.read(serverConfig("port=\"-1\"")));
+        assertNull(ServerShutdownCommand.read(serverConfig("port=\"${shutdown.port}\"")));
+
+        final File missingServerConfig = serverConfig("");
+        missingServerConfig.delete();
+        assertNull(ServerShutdownCommand.read(missingServerConfig));
+    }
+
+    @Test
+    public void testSendShutdownCommand() throws Exception {
+
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final ServerShutdownCommand command =
+                new ServerShutdownCommand("localhost", serverSocket.getLocalPort(), "SHUTDOWN");
+
+            assertTrue(command.send());
+            try (Socket socket = serverSocket.accept()) {
+                assertEquals("SHUTDOWN", new String(socket.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1));
+            }
+        }
+    }
+
+    @Test
+    public void testSendShutdownCommandWithoutListener() throws Exception {
+
+        final int port;
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = serverSocket.getLocalPort();
+        }
+
+        assertFalse(new ServerShutdownCommand("localhost", port, "SHUTDOWN").send());
+    }
+
+    private File serverConfig(final String serverAttributes) throws Exception {
+
+        final File serverConfig = File.createTempFile("server", ".xml");
+        serverConfig.deleteOnExit();
+        Files.write(serverConfig.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Server " + serverAttributes
+            + "><Service name=\"Catalina\"/></Server>").getBytes(StandardCharsets.UTF_8));
+        return serverConfig;
+    }
+}
@@ -2,6 +2,8 @@ package org.jboss.arquillian.container.tomcat.managed;
 
 import static org.junit.Assert.*;
 
+import java.nio.file.Files;
+
 import org.junit.Test;
 
 public class TomcatManagedConfigurationTest {
@@ -31,4 +33,27 @@ public class TomcatManagedConfigurationTest {
 
         assertEquals(expectedJavaHome, actualJavaHome);
     }
+
+    @Test
+    public void testCreateNodeConfiguration() throws Exception {
+
+        final TomcatManagedConfiguration configuration = new TomcatManagedConfiguration();
+        configuration.setCatalinaHome(Files.createTempDirectory("catalina-home").toString());
+        configuration.setCatalinaBase(null);
+        configuration.setJavaVmArguments("-Xmx1g");
+        configuration.setLocalDeployment(true);
+        configuration.setUser("admin");
+        configuration.setNodes(3);
+
+        final TomcatManagedConfiguration node = configuration.createNodeConfiguration();
+
+        assertEquals(configuration.getCatalinaHome(), node.getCatalinaHome());
+        assertEquals("-Xmx1g", node.getJavaVmArguments());
+        assertTrue(node.isLocalDeployment());
+        assertEquals("admin", node.getUser());
+        assertEquals(1, node.getNodes());
+        assertEquals(0, node.getBindHttpPort());
+        assertEquals(0, node.getJmxPort());
+        assertEquals(8080, configuration.getBindHttpPort());
+    }
 }
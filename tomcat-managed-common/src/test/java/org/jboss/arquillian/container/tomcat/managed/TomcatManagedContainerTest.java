@@ -52,4 +52,32 @@ public class TomcatManagedContainerTest {
 
         commonTomcatManagedContainer.getJavaCommand();
     }
+
+    @Test
+    public void testStartupOutputDetection() {
+
+        assertTrue(TomcatManagedContainer.isStartupComplete("17-Oct-2026 10:15:30.123 INFO [main] "
+            + "org.apache.catalina.startup.Catalina.start Server startup in [1234] milliseconds"));
+        assertTrue(TomcatManagedContainer.isStartupComplete("INFO: Server startup in 845 ms"));
+        assertFalse(TomcatManagedContainer.isStartupComplete("INFO: Starting Servlet engine: [Apache Tomcat/10.1.0]"));
+
+        assertTrue(TomcatManagedContainer.isStartupFailure("17-Oct-2026 10:15:30.123 SEVERE [main] "
+            + "org.apache.catalina.core.StandardService.initInternal Failed to initialize connector "
+            + "[Connector[HTTP/1.1-8080]]"));
+        assertTrue(
+            TomcatManagedContainer.isStartupFailure("SEVERE: Failed to start connector [Connector[AJP/1.3-8009]]"));
+        assertTrue(TomcatManagedContainer.isStartupFailure(
+            "org.apache.catalina.LifecycleException: Failed to initialize component [StandardServer[8005]]"));
+        assertTrue(TomcatManagedContainer.isStartupFailure("SEVERE [main] org.apache.catalina.startup.Catalina.start "
+            + "The required Server component failed to start so Tomcat is unable to start."));
+        assertTrue(TomcatManagedContainer.isStartupFailure(
+            "Error: Could not find or load main class org.apache.catalina.startup.Bootstrap"));
+        assertFalse(TomcatManagedContainer.isStartupFailure(
+            "INFO: Deploying web application directory [/opt/tomcat/webapps/manager]"));
+        assertFalse(TomcatManagedContainer.isStartupFailure("java.net.BindException: Address already in use"));
+        assertFalse(TomcatManagedContainer.isStartupFailure("SEVERE [main] "
+            + "org.apache.tomcat.util.digester.Digester.fatalError Parse Fatal Error at line 3 column 2"));
+        assertFalse(TomcatManagedContainer.isStartupFailure("SEVERE: Failed to start component "
+            + "[StandardEngine[Catalina].StandardHost[localhost].StandardContext[/app]]"));
+    }
 }
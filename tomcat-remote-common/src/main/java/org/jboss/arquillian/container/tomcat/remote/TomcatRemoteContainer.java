@@ -17,15 +17,14 @@
 package org.jboss.arquillian.container.tomcat.remote;
 
 import java.io.IOException;
-import java.net.URL;
 
 import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
 import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.arquillian.container.spi.client.container.LifecycleException;
 import org.jboss.arquillian.container.spi.client.deployment.Validate;
 import org.jboss.arquillian.container.spi.client.protocol.ProtocolDescription;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.arquillian.container.tomcat.ProtocolMetadataParser;
-import org.jboss.arquillian.container.tomcat.ShrinkWrapUtil;
 import org.jboss.arquillian.container.tomcat.TomcatManager;
 import org.jboss.arquillian.container.tomcat.TomcatManagerCommandSpec;
 import org.jboss.shrinkwrap.api.Archive;
@@ -47,6 +46,8 @@ abstract class TomcatRemoteContainer implements DeployableContainer<TomcatRemote
 
     private TomcatManager<TomcatRemoteConfiguration> manager;
 
+    private ProtocolMetadataParser<TomcatRemoteConfiguration> protocolMetadataParser;
+
     TomcatRemoteContainer(final ProtocolDescription protocolDescription, final TomcatManagerCommandSpec tomcatManagerCommandSpec) {
         this.protocolDescription = protocolDescription;
         this.tomcatManagerCommandSpec = tomcatManagerCommandSpec;
@@ -67,6 +68,12 @@ abstract class TomcatRemoteContainer implements DeployableContainer<TomcatRemote
     public void setup(final TomcatRemoteConfiguration configuration) {
         this.configuration = configuration;
         this.manager = new TomcatManager<>(configuration, tomcatManagerCommandSpec);
+        this.protocolMetadataParser = new ProtocolMetadataParser<>(configuration);
+    }
+
+    @Override
+    public void stop() throws LifecycleException {
+        protocolMetadataParser.close();
     }
 
     /**
@@ -79,16 +86,13 @@ abstract class TomcatRemoteContainer implements DeployableContainer<TomcatRemote
         Validate.notNull(archive, "Archive must not be null");
 
         final String archiveName = manager.normalizeArchiveName(archive.getName());
-        final URL archiveURL = ShrinkWrapUtil.toURL(archive);
         try {
-            manager.deploy("/" + archiveName, archiveURL);
+            manager.deploy("/" + archiveName, archive);
         } catch (final IOException e) {
             throw new DeploymentException("Unable to deploy an archive " + archive.getName(), e);
         }
 
-        final ProtocolMetadataParser<TomcatRemoteConfiguration> parser = new ProtocolMetadataParser<>(configuration);
-
-        return parser.retrieveContextServletInfo(archiveName);
+        return protocolMetadataParser.retrieveContextServletInfo(archiveName, archive);
     }
 
     @Override